@@ -0,0 +1,34 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import io.netty.channel.Channel;
+import org.bukkit.entity.Player;
+
+import java.util.logging.Logger;
+
+// Drives a Pledge instance without a server, players and ticks are supplied by the caller
+public final class HeadlessPledge {
+    private HeadlessPledge() {
+    }
+
+    public static PledgeImpl create(PingPacketProvider packetProvider) {
+        return new PledgeImpl(Logger.getLogger("Pledge"), packetProvider);
+    }
+
+    // The channel pipeline needs to contain the vanilla handlers Pledge injects around
+    public static void join(PledgeImpl pledge, Player player, Channel channel) {
+        pledge.setupPlayer(player, channel, true);
+    }
+
+    public static void quit(PledgeImpl pledge, Player player) {
+        pledge.teardownPlayer(player);
+    }
+
+    public static void tickStart(PledgeImpl pledge) {
+        pledge.getTickDriver().start();
+    }
+
+    public static void tickEnd(PledgeImpl pledge) {
+        pledge.getTickDriver().end();
+    }
+}
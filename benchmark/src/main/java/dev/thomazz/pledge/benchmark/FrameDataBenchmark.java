@@ -0,0 +1,71 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.pinger.frame.data.Frame;
+import dev.thomazz.pledge.pinger.frame.data.FrameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Continuing a frame, matching the start and end pong of the oldest frame and removing it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDataBenchmark {
+    private static final int FRAMES = 1000;
+
+    @Param({"1", "64"})
+    private int inFlight;
+
+    private final Consumer<Frame> handler = frame -> {};
+
+    private FrameData data;
+    private Frame[] frames;
+    private int next;
+    private int oldest;
+
+    @Setup
+    public void setup() {
+        this.data = new FrameData();
+        this.frames = new Frame[FrameDataBenchmark.FRAMES];
+        for (int i = 0; i < this.frames.length; i++) {
+            this.frames[i] = new Frame(-1 - i * 2, -2 - i * 2);
+        }
+
+        for (int i = 0; i < this.inFlight - 1; i++) {
+            this.continueFrame();
+        }
+    }
+
+    @Benchmark
+    public Frame continueMatchPop() {
+        this.continueFrame();
+
+        Frame frame = this.frames[this.oldest];
+        this.oldest = (this.oldest + 1) % this.frames.length;
+
+        this.data.findStart(frame.getStartId(), this.handler);
+        Frame end = this.data.findEnd(frame.getEndId(), this.handler);
+        this.data.popFrame(frame.getEndId());
+        return end;
+    }
+
+    private void continueFrame() {
+        this.data.setFrame(this.frames[this.next]);
+        this.data.continueFrame();
+        this.next = (this.next + 1) % this.frames.length;
+    }
+}
@@ -0,0 +1,98 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.benchmark.packet.StubGamePacket;
+import dev.thomazz.pledge.benchmark.packet.StubLoginPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPackets;
+import dev.thomazz.pledge.network.NetworkPacketConsolidator;
+import dev.thomazz.pledge.network.queue.MessageQueueHandler;
+import dev.thomazz.pledge.network.queue.QueueMode;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of queueing a tick worth of packets and draining them again at the end of the tick
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageQueueBenchmark {
+    @Param({"1", "16", "128"})
+    private int messages;
+
+    private Object packet;
+
+    private EmbeddedChannel queueChannel;
+    private MessageQueueHandler queueHandler;
+    private ChannelHandlerContext queueContext;
+
+    private EmbeddedChannel consolidatorChannel;
+    private NetworkPacketConsolidator consolidator;
+    private ChannelHandlerContext consolidatorContext;
+
+    @Setup
+    public void setup() {
+        StubPackets.register();
+        this.packet = new StubGamePacket(0);
+
+        this.queueHandler = new MessageQueueHandler();
+        this.queueHandler.setMode(QueueMode.ADD_LAST);
+        this.queueChannel = new EmbeddedChannel(this.queueHandler);
+        this.queueContext = this.queueChannel.pipeline().context(this.queueHandler);
+
+        // Consolidator only starts queueing after the login packet
+        this.consolidator = new NetworkPacketConsolidator();
+        this.consolidatorChannel = new EmbeddedChannel(this.consolidator);
+        this.consolidatorContext = this.consolidatorChannel.pipeline().context(this.consolidator);
+        this.consolidatorChannel.writeAndFlush(new StubLoginPacket());
+        this.consolidatorChannel.outboundMessages().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.queueChannel.finishAndReleaseAll();
+        this.consolidatorChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int queueHandler() {
+        for (int i = 0; i < this.messages; i++) {
+            this.queueChannel.write(this.packet);
+        }
+
+        this.queueHandler.drain(this.queueContext);
+        return MessageQueueBenchmark.clear(this.queueChannel);
+    }
+
+    @Benchmark
+    public int consolidator() {
+        this.consolidator.close();
+        for (int i = 0; i < this.messages; i++) {
+            this.consolidatorChannel.write(this.packet);
+        }
+
+        this.consolidator.open();
+        this.consolidator.drain(this.consolidatorContext);
+        return MessageQueueBenchmark.clear(this.consolidatorChannel);
+    }
+
+    private static int clear(EmbeddedChannel channel) {
+        int size = channel.outboundMessages().size();
+        channel.outboundMessages().clear();
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.benchmark.packet.StubGamePacket;
+import dev.thomazz.pledge.benchmark.packet.StubKeepAlivePacket;
+import dev.thomazz.pledge.benchmark.packet.StubLoginPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPackets;
+import dev.thomazz.pledge.packet.PacketFiltering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Per packet cost of resolving packet categories, done for every outbound packet
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketFilteringBenchmark {
+    private Object login;
+    private Object keepAlive;
+    private Object game;
+
+    @Setup
+    public void setup() {
+        StubPackets.register();
+
+        this.login = new StubLoginPacket();
+        this.keepAlive = new StubKeepAlivePacket(0L);
+        this.game = new StubGamePacket(0);
+    }
+
+    @Benchmark
+    public int classifyMember() {
+        return PacketFiltering.classify(this.login);
+    }
+
+    @Benchmark
+    public int classifyOther() {
+        return PacketFiltering.classify(this.game);
+    }
+
+    @Benchmark
+    public boolean queueBypass() {
+        return PacketFiltering.isWhitelistedFromQueue(this.keepAlive);
+    }
+
+    @Benchmark
+    public boolean queueBypassOther() {
+        return PacketFiltering.isWhitelistedFromQueue(this.game);
+    }
+}
@@ -0,0 +1,81 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.benchmark.packet.StubInTransactionPacket;
+import dev.thomazz.pledge.benchmark.packet.StubOutTransactionPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPingPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPongPacket;
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.packet.providers.TransactionPacketProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Per call cost of the ping packet providers for each accessor backend
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketProviderBenchmark {
+    @Param({"COMPILED", "REFLECTION"})
+    private AccessorBackend backend;
+
+    @Param({"TRANSACTION", "PING_PONG"})
+    private String provider;
+
+    private PingPacketProvider packetProvider;
+    private Object pong;
+    private Object other;
+    private int id;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (this.provider) {
+            case "TRANSACTION":
+                this.packetProvider = new TransactionPacketProvider(this.backend, StubOutTransactionPacket.class, StubInTransactionPacket.class);
+                this.pong = new StubInTransactionPacket(0, (short) -10, true);
+                break;
+            case "PING_PONG":
+                this.packetProvider = new PingPongPacketProvider(this.backend, StubPingPacket.class, StubPongPacket.class);
+                this.pong = new StubPongPacket(-10);
+                break;
+            default:
+                throw new IllegalArgumentException(this.provider);
+        }
+
+        this.other = new Object();
+    }
+
+    @Benchmark
+    public Object buildPacket() throws Exception {
+        return this.packetProvider.buildPacket(this.id++ | Short.MIN_VALUE);
+    }
+
+    @Benchmark
+    public int idFromPong() throws Exception {
+        return this.packetProvider.idFromPong(this.pong);
+    }
+
+    @Benchmark
+    public boolean isPong() throws Exception {
+        return this.packetProvider.isPong(this.pong);
+    }
+
+    @Benchmark
+    public boolean isPongOther() throws Exception {
+        return this.packetProvider.isPong(this.other);
+    }
+}
@@ -0,0 +1,72 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.HeadlessPledge;
+import dev.thomazz.pledge.PledgeImpl;
+import dev.thomazz.pledge.benchmark.packet.StubPingPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPongPacket;
+import dev.thomazz.pledge.benchmark.stub.StubServer;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.data.PingData;
+import dev.thomazz.pledge.pinger.data.PingOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Tracking a sent ping and confirming the oldest outstanding one, with a number of pings in flight
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PingDataBenchmark {
+    @Param({"1", "64"})
+    private int inFlight;
+
+    private PingData data;
+    private int[] sent;
+    private int sendIndex;
+    private int confirmIndex;
+
+    @Setup
+    public void setup() throws Exception {
+        StubServer.install();
+
+        PledgeImpl pledge = HeadlessPledge.create(new PingPongPacketProvider(AccessorBackend.COMPILED, StubPingPacket.class, StubPongPacket.class));
+        ClientPingerImpl pinger = (ClientPingerImpl) pledge.createPinger(-1, -2000);
+        this.data = new PingData(StubServer.player(1), pinger);
+
+        this.sent = new int[this.inFlight];
+        for (int i = 0; i < this.inFlight - 1; i++) {
+            this.offer();
+        }
+    }
+
+    @Benchmark
+    public PingOrder offerConfirm() {
+        this.offer();
+
+        int id = this.sent[this.confirmIndex];
+        this.confirmIndex = (this.confirmIndex + 1) % this.sent.length;
+        return this.data.confirmOrder(id);
+    }
+
+    private void offer() {
+        int id = this.data.pullId();
+        this.data.offer(PingOrder.TICK_START, id);
+        this.sent[this.sendIndex] = id;
+        this.sendIndex = (this.sendIndex + 1) % this.sent.length;
+    }
+}
@@ -0,0 +1,93 @@
+package dev.thomazz.pledge.benchmark;
+
+import dev.thomazz.pledge.HeadlessPledge;
+import dev.thomazz.pledge.PledgeImpl;
+import dev.thomazz.pledge.benchmark.packet.StubPingPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPongPacket;
+import dev.thomazz.pledge.benchmark.stub.StubServer;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.data.PingData;
+import dev.thomazz.pledge.pinger.data.PingOrder;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Routing a received pong to the pinger owning its ID, with a number of pingers registered
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PongDispatchBenchmark {
+    private static final int RANGE = 1000;
+
+    @Param({"1", "8", "32"})
+    private int pingers;
+
+    private PledgeImpl pledge;
+    private EmbeddedChannel channel;
+    private Player player;
+    private PlayerSession session;
+    private PingData data;
+
+    @Setup
+    public void setup() throws Exception {
+        StubServer.install();
+
+        this.pledge = HeadlessPledge.create(new PingPongPacketProvider(AccessorBackend.COMPILED, StubPingPacket.class, StubPongPacket.class));
+
+        // Disjoint ranges, the pong is always for the last pinger which is the only one tracking the player
+        ClientPingerImpl last = null;
+        for (int i = 0; i < this.pingers; i++) {
+            if (last != null) {
+                last.filter(player -> false);
+            }
+
+            int start = -1 - i * PongDispatchBenchmark.RANGE;
+            last = (ClientPingerImpl) this.pledge.createPinger(start, start - PongDispatchBenchmark.RANGE + 1);
+        }
+
+        this.channel = new EmbeddedChannel();
+        StubServer.vanillaPipeline(this.channel.pipeline());
+        this.player = StubServer.player(1);
+        HeadlessPledge.join(this.pledge, this.player, this.channel);
+
+        this.session = PlayerSession.get(this.channel);
+        this.data = last.getPingData(this.player).orElseThrow(IllegalStateException::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HeadlessPledge.quit(this.pledge, this.player);
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void matched() {
+        int id = this.data.pullId();
+        this.data.offer(PingOrder.TICK_START, id);
+        this.pledge.receivePong(this.player, this.session, id);
+    }
+
+    @Benchmark
+    public void unmatched() {
+        this.pledge.receivePong(this.player, this.session, 1);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.thomazz.pledge.benchmark.harness;
+
+import dev.thomazz.pledge.benchmark.packet.StubPingPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPongPacket;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Fake client answering every ping with a pong, in the order the pings were received like a real connection
+public class EchoClient extends ChannelInboundHandlerAdapter {
+    private final long delayNanos;
+    private final long jitterNanos;
+
+    // Pongs waiting for their reply time, which never decreases so the head is always due first
+    private final Queue<StubPongPacket> pending = new ArrayDeque<>();
+    private final Queue<Long> replyTimes = new ArrayDeque<>();
+    private long lastReply;
+
+    public EchoClient(long delayMillis, long jitterMillis) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.jitterNanos = TimeUnit.MILLISECONDS.toNanos(jitterMillis);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof StubPingPacket)) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        StubPongPacket pong = new StubPongPacket(((StubPingPacket) msg).getId());
+        if (this.delayNanos == 0L && this.jitterNanos == 0L) {
+            ctx.writeAndFlush(pong, ctx.voidPromise());
+            return;
+        }
+
+        // Jitter never lets a pong overtake an earlier one
+        long now = System.nanoTime();
+        long jitter = this.jitterNanos > 0L ? ThreadLocalRandom.current().nextLong(this.jitterNanos) : 0L;
+        long reply = Math.max(now + this.delayNanos + jitter, this.lastReply);
+        this.lastReply = reply;
+
+        this.pending.add(pong);
+        this.replyTimes.add(reply);
+        ctx.executor().schedule(() -> this.reply(ctx), reply - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void reply(ChannelHandlerContext ctx) {
+        long now = System.nanoTime();
+        boolean written = false;
+
+        while (!this.replyTimes.isEmpty() && this.replyTimes.peek() <= now) {
+            this.replyTimes.poll();
+            ctx.write(this.pending.poll(), ctx.voidPromise());
+            written = true;
+        }
+
+        if (written) {
+            ctx.flush();
+        }
+    }
+}
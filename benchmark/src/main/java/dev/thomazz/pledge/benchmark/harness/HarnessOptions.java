@@ -0,0 +1,77 @@
+package dev.thomazz.pledge.benchmark.harness;
+
+// Command line options of the load harness, given as --name value pairs
+public class HarnessOptions {
+    // Simulated players and the server event loops their channels are spread over
+    int players = 1000;
+    int loops = 4;
+
+    // Client side pong delay, jitter is random extra delay that keeps pongs in order
+    long delayMillis = 50L;
+    long jitterMillis = 20L;
+
+    // Ticks per second, 0 runs ticks as fast as possible
+    int tps = 20;
+    int seconds = 30;
+
+    // Game packets sent to every player each tick
+    int packets = 10;
+
+    boolean frame = false;
+    boolean coalesce = false;
+
+    public static HarnessOptions parse(String[] args) {
+        HarnessOptions options = new HarnessOptions();
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (!name.startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + name);
+            }
+
+            String value = args[++i];
+            switch (name.substring(2)) {
+                case "players":
+                    options.players = Integer.parseInt(value);
+                    break;
+                case "loops":
+                    options.loops = Integer.parseInt(value);
+                    break;
+                case "delay":
+                    options.delayMillis = Long.parseLong(value);
+                    break;
+                case "jitter":
+                    options.jitterMillis = Long.parseLong(value);
+                    break;
+                case "tps":
+                    options.tps = Integer.parseInt(value);
+                    break;
+                case "seconds":
+                    options.seconds = Integer.parseInt(value);
+                    break;
+                case "packets":
+                    options.packets = Integer.parseInt(value);
+                    break;
+                case "pinger":
+                    options.frame = "frame".equalsIgnoreCase(value);
+                    break;
+                case "coalesce":
+                    options.coalesce = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "players=%d loops=%d delay=%dms jitter=%dms tps=%s seconds=%d packets=%d pinger=%s coalesce=%b",
+            this.players, this.loops, this.delayMillis, this.jitterMillis, this.tps > 0 ? this.tps : "max",
+            this.seconds, this.packets, this.frame ? "frame" : "tick", this.coalesce
+        );
+    }
+}
@@ -0,0 +1,291 @@
+package dev.thomazz.pledge.benchmark.harness;
+
+import dev.thomazz.pledge.HeadlessPledge;
+import dev.thomazz.pledge.PledgeImpl;
+import dev.thomazz.pledge.benchmark.packet.StubGamePacket;
+import dev.thomazz.pledge.benchmark.packet.StubLoginPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPackets;
+import dev.thomazz.pledge.benchmark.packet.StubPingPacket;
+import dev.thomazz.pledge.benchmark.packet.StubPongPacket;
+import dev.thomazz.pledge.benchmark.stub.StubServer;
+import dev.thomazz.pledge.metrics.HistogramSnapshot;
+import dev.thomazz.pledge.metrics.LatencyHistogram;
+import dev.thomazz.pledge.metrics.Metric;
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.frame.FrameClientPingerImpl;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import org.bukkit.entity.Player;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs Pledge against simulated players without a server, to size capacity before deploying.
+ * <p>
+ * Every player has a local channel on one of the server event loops, connected to a fake client that answers pings.
+ * The main thread runs ticks and sends game packets to all players, a report line is printed every second.
+ * <p>
+ * Run with: java -cp benchmarks.jar dev.thomazz.pledge.benchmark.harness.LoadHarness --players 2000 --loops 4
+ */
+public class LoadHarness {
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+
+    private final HarnessOptions options;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final List<Long> loopThreads = new ArrayList<>();
+
+    // Time spent in Pledge on the main thread per tick, and the full tick including sending game packets
+    private final LatencyHistogram pledgeTime = new LatencyHistogram();
+    private final LatencyHistogram tickTime = new LatencyHistogram();
+    private final LatencyHistogram totalPledgeTime = new LatencyHistogram();
+
+    private long lastReport;
+    private long lastTicks;
+    private long ticks;
+    private long lastLoopCpu;
+    private long lastAllocated;
+    private long lastPings;
+    private long lastPongs;
+    private long lastUnmatched;
+
+    public LoadHarness(HarnessOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessOptions options = HarnessOptions.parse(args);
+        System.out.println("Pledge load harness: " + options);
+        new LoadHarness(options).run();
+    }
+
+    public void run() throws Exception {
+        StubPackets.register();
+
+        PledgeImpl pledge = HeadlessPledge.create(new PingPongPacketProvider(AccessorBackend.COMPILED, StubPingPacket.class, StubPongPacket.class));
+        pledge.setFlushCoalescing(this.options.coalesce);
+
+        ClientPingerImpl pinger = (ClientPingerImpl) (this.options.frame
+            ? pledge.createFramePinger(-1, -2000)
+            : pledge.createPinger(-1, -2000));
+
+        DefaultEventLoopGroup serverLoops = new DefaultEventLoopGroup(this.options.loops, new DefaultThreadFactory("harness-server"));
+        DefaultEventLoopGroup clientLoops = new DefaultEventLoopGroup(this.options.loops, new DefaultThreadFactory("harness-client"));
+
+        for (EventExecutor executor : serverLoops) {
+            this.loopThreads.add(executor.submit(() -> Thread.currentThread().getId()).get());
+        }
+
+        LocalAddress address = new LocalAddress("pledge-harness");
+        BlockingQueue<Channel> accepted = new LinkedBlockingQueue<>();
+
+        Channel server = new ServerBootstrap()
+            .group(serverLoops)
+            .channel(LocalServerChannel.class)
+            .childHandler(new ChannelInitializer<LocalChannel>() {
+                @Override
+                protected void initChannel(LocalChannel channel) {
+                    StubServer.vanillaPipeline(channel.pipeline());
+                    accepted.add(channel);
+                }
+            })
+            .bind(address).sync().channel();
+
+        Bootstrap client = new Bootstrap()
+            .group(clientLoops)
+            .channel(LocalChannel.class)
+            .handler(new ChannelInitializer<LocalChannel>() {
+                @Override
+                protected void initChannel(LocalChannel channel) {
+                    channel.pipeline().addLast(new EchoClient(LoadHarness.this.options.delayMillis, LoadHarness.this.options.jitterMillis));
+                }
+            });
+
+        Player[] players = new Player[this.options.players];
+        Channel[] channels = new Channel[this.options.players];
+        for (int i = 0; i < players.length; i++) {
+            client.connect(address).sync();
+
+            players[i] = StubServer.player(i + 1);
+            channels[i] = accepted.take();
+            HeadlessPledge.join(pledge, players[i], channels[i]);
+            channels[i].writeAndFlush(new StubLoginPacket());
+        }
+
+        System.out.println("Joined " + players.length + " players, running for " + this.options.seconds + " seconds");
+        System.out.println(String.format(
+            "%6s %9s %9s %9s %9s %8s %9s %9s %9s %10s %9s %9s %9s",
+            "tps", "pledge", "p99", "max", "tick", "loopcpu", "pings/s", "pongs/s", "unmatch/s", "alloc/s", "queued", "pending", "rtt p99"
+        ));
+
+        this.tick(pledge, pinger, players, channels);
+
+        for (Player player : players) {
+            HeadlessPledge.quit(pledge, player);
+        }
+
+        for (Channel channel : channels) {
+            channel.close().sync();
+        }
+
+        server.close().sync();
+
+        clientLoops.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).sync();
+        serverLoops.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).sync();
+
+        HistogramSnapshot total = this.totalPledgeTime.snapshot();
+        System.out.println(String.format(
+            "Pledge main thread time per tick over %d ticks: mean %s, p50 %s, p99 %s, max %s",
+            total.getCount(),
+            LoadHarness.micros((long) total.getMean()),
+            LoadHarness.micros(total.getPercentile(50.0)),
+            LoadHarness.micros(total.getPercentile(99.0)),
+            LoadHarness.micros(total.getMax())
+        ));
+    }
+
+    private void tick(PledgeImpl pledge, ClientPingerImpl pinger, Player[] players, Channel[] channels) {
+        long interval = this.options.tps > 0 ? TimeUnit.SECONDS.toNanos(1L) / this.options.tps : 0L;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(this.options.seconds);
+        long next = start;
+
+        this.lastReport = start;
+        this.sample(pinger, start, false);
+
+        Object packet = new StubGamePacket(0);
+        while (System.nanoTime() < end) {
+            long tickStart = System.nanoTime();
+            HeadlessPledge.tickStart(pledge);
+            long pledgeStart = System.nanoTime() - tickStart;
+
+            // Game packets written from the main thread like the server does during a tick
+            for (int i = 0; i < channels.length; i++) {
+                Channel channel = channels[i];
+                for (int j = 0; j < this.options.packets; j++) {
+                    channel.write(packet);
+                }
+
+                channel.flush();
+
+                if (this.options.frame) {
+                    ((FrameClientPingerImpl) pinger).getOrCreate(players[i]);
+                }
+            }
+
+            long tickEnd = System.nanoTime();
+            HeadlessPledge.tickEnd(pledge);
+            long now = System.nanoTime();
+
+            long pledgeNanos = pledgeStart + now - tickEnd;
+            this.pledgeTime.record(pledgeNanos);
+            this.totalPledgeTime.record(pledgeNanos);
+            this.tickTime.record(now - tickStart);
+            this.ticks++;
+
+            if (now - this.lastReport >= LoadHarness.REPORT_INTERVAL) {
+                this.sample(pinger, now, true);
+            }
+
+            if (interval > 0L) {
+                next += interval;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0L) {
+                    LockSupport.parkNanos(sleep);
+                } else {
+                    // Behind schedule, do not try to catch up
+                    next = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    private void sample(ClientPingerImpl pinger, long now, boolean print) {
+        long loopCpu = 0L;
+        for (long thread : this.loopThreads) {
+            loopCpu += Math.max(this.threads.getThreadCpuTime(thread), 0L);
+        }
+
+        long allocated = this.allocatedBytes();
+        long pings = PledgeMetrics.PINGS_SENT.get();
+        long pongs = PledgeMetrics.PONGS_MATCHED.get();
+        long unmatched = PledgeMetrics.PONGS_UNMATCHED.get();
+
+        if (print) {
+            double seconds = (now - this.lastReport) / 1e9D;
+            HistogramSnapshot pledge = this.pledgeTime.snapshotAndReset();
+            HistogramSnapshot tick = this.tickTime.snapshotAndReset();
+            HistogramSnapshot roundTrip = pinger.getLatency().getRoundTrip().snapshotAndReset();
+
+            System.out.println(String.format(
+                "%6.1f %9s %9s %9s %9s %7.1f%% %9.0f %9.0f %9.0f %8.1fMB %9d %9d %9s",
+                (this.ticks - this.lastTicks) / seconds,
+                LoadHarness.micros((long) pledge.getMean()),
+                LoadHarness.micros(pledge.getPercentile(99.0)),
+                LoadHarness.micros(pledge.getMax()),
+                LoadHarness.micros((long) tick.getMean()),
+                (loopCpu - this.lastLoopCpu) / (seconds * 1e9D * this.loopThreads.size()) * 100D,
+                (pings - this.lastPings) / seconds,
+                (pongs - this.lastPongs) / seconds,
+                (unmatched - this.lastUnmatched) / seconds,
+                allocated >= 0L ? (allocated - this.lastAllocated) / seconds / (1024D * 1024D) : Double.NaN,
+                PledgeMetrics.QUEUED_MESSAGES.get(),
+                LoadHarness.gauge("pledge_outstanding_pings"),
+                LoadHarness.millis(roundTrip.getPercentile(99.0))
+            ));
+        }
+
+        this.lastReport = now;
+        this.lastTicks = this.ticks;
+        this.lastLoopCpu = loopCpu;
+        this.lastAllocated = allocated;
+        this.lastPings = pings;
+        this.lastPongs = pongs;
+        this.lastUnmatched = unmatched;
+    }
+
+    // Bytes allocated by the main thread and the server event loops, -1 if the JVM does not track it
+    private long allocatedBytes() {
+        if (!(this.threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1L;
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) this.threads;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (long thread : this.loopThreads) {
+            allocated += Math.max(threads.getThreadAllocatedBytes(thread), 0L);
+        }
+
+        return allocated;
+    }
+
+    private static long gauge(String name) {
+        Metric metric = PledgeMetrics.REGISTRY.getMetric(name);
+        return metric != null ? metric.getValue().getAsLong() : -1L;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1e3D);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1e6D);
+    }
+}
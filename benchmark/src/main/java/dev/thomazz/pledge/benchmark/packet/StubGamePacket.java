@@ -0,0 +1,10 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Regular game packet that gets queued
+public class StubGamePacket {
+    private final int entityId;
+
+    public StubGamePacket(int entityId) {
+        this.entityId = entityId;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the shape of PacketPlayInTransaction
+public class StubInTransactionPacket {
+    private final int window;
+    private final short action;
+    private final boolean accepted;
+
+    public StubInTransactionPacket(int window, short action, boolean accepted) {
+        this.window = window;
+        this.action = action;
+        this.accepted = accepted;
+    }
+}
@@ -0,0 +1,10 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the role of ClientboundKeepAlivePacket, bypasses the packet queue
+public class StubKeepAlivePacket {
+    private final long id;
+
+    public StubKeepAlivePacket(long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,5 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the role of ClientboundLoginPacket, starts the game state for the consolidator
+public class StubLoginPacket {
+}
@@ -0,0 +1,14 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the shape of PacketPlayOutTransaction
+public class StubOutTransactionPacket {
+    private final int window;
+    private final short action;
+    private final boolean accepted;
+
+    public StubOutTransactionPacket(int window, short action, boolean accepted) {
+        this.window = window;
+        this.action = action;
+        this.accepted = accepted;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+import dev.thomazz.pledge.benchmark.stub.StubServer;
+import dev.thomazz.pledge.packet.PacketFiltering;
+
+// Registers the stub packets with the same categories their vanilla counterparts are in
+public final class StubPackets {
+    private static boolean registered;
+
+    private StubPackets() {
+    }
+
+    public static synchronized void register() {
+        StubServer.install();
+
+        if (!StubPackets.registered) {
+            PacketFiltering.LOGIN.add(StubLoginPacket.class);
+            PacketFiltering.QUEUE_BYPASS.add(StubKeepAlivePacket.class);
+            StubPackets.registered = true;
+        }
+    }
+}
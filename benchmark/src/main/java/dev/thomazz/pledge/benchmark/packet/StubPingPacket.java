@@ -0,0 +1,14 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the shape of ClientboundPingPacket
+public class StubPingPacket {
+    private final int id;
+
+    public StubPingPacket(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return this.id;
+    }
+}
@@ -0,0 +1,10 @@
+package dev.thomazz.pledge.benchmark.packet;
+
+// Mirrors the shape of ServerboundPongPacket
+public class StubPongPacket {
+    private final int id;
+
+    public StubPongPacket(int id) {
+        this.id = id;
+    }
+}
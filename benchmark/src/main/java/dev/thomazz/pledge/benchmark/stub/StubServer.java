@@ -0,0 +1,104 @@
+package dev.thomazz.pledge.benchmark.stub;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+// Minimal server and player stand-ins, enough for Pledge to resolve packet classes and track sessions
+public final class StubServer {
+    private static final Logger LOGGER = Logger.getLogger("StubServer");
+
+    private StubServer() {
+    }
+
+    public static synchronized void install() {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(StubServer.proxy(Server.class, (proxy, method, args) -> {
+                if (method.getReturnType() == Logger.class) {
+                    return StubServer.LOGGER;
+                }
+
+                return StubServer.defaultValue(proxy, method, args);
+            }));
+        }
+    }
+
+    public static Player player(int entityId) {
+        UUID uniqueId = new UUID(0L, entityId);
+        String name = "Player" + entityId;
+
+        return StubServer.proxy(Player.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uniqueId;
+                case "getEntityId":
+                    return entityId;
+                case "getName":
+                    return name;
+                case "isOnline":
+                    return true;
+                default:
+                    return StubServer.defaultValue(proxy, method, args);
+            }
+        });
+    }
+
+    // Named stand-ins for the vanilla handlers Pledge injects its own handlers around
+    public static void vanillaPipeline(ChannelPipeline pipeline) {
+        for (String name : new String[] {"splitter", "decoder", "prepender", "encoder", "packet_handler"}) {
+            pipeline.addLast(name, new ChannelHandlerAdapter() {
+                @Override
+                public boolean isSharable() {
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                break;
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == char.class) {
+            return (char) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
@@ -1,6 +1,14 @@
 package dev.thomazz.pledge;
 
+import dev.thomazz.pledge.event.PingEventBus;
+import dev.thomazz.pledge.event.TickClock;
+import dev.thomazz.pledge.metrics.MetricsRegistry;
+import dev.thomazz.pledge.metrics.PingLatency;
+import dev.thomazz.pledge.network.queue.QueueOverflowAction;
+import dev.thomazz.pledge.network.queue.QueueOverflowPolicy;
+import dev.thomazz.pledge.packet.PacketCategory;
 import dev.thomazz.pledge.pinger.ClientPinger;
+import dev.thomazz.pledge.pinger.ListenerExecutor;
 import dev.thomazz.pledge.pinger.frame.FrameClientPinger;
 import io.netty.channel.Channel;
 import org.bukkit.entity.Player;
@@ -30,6 +38,84 @@ public interface Pledge {
      */
     Optional<Channel> getChannel(@NotNull Player player);
 
+    /**
+     * Gets the event bus pings and pongs are dispatched to.
+     * Handlers registered here are called without creating any event objects.
+     * <p>
+     * @return - Event bus
+     */
+    PingEventBus getEventBus();
+
+    /**
+     * Gets the clock that keeps track of server ticks.
+     * Listeners registered here are called directly at the start and end of every tick, without creating events.
+     * <p>
+     * @return - Tick clock
+     */
+    TickClock getTickClock();
+
+    /**
+     * Gets the latency histograms for pongs received by all pingers.
+     * Histograms for a single pinger are available through {@link ClientPinger#getLatency()}.
+     * <p>
+     * @return - Latency histograms
+     */
+    PingLatency getLatency();
+
+    /**
+     * Gets the listener executor that runs callbacks on the main thread at the start of every tick.
+     * Callbacks from the previous tick are delivered in one batch grouped by player,
+     * so listeners attached with it do not need to schedule their own task or lock game state.
+     * <p>
+     * @return - Tick synchronized listener executor
+     */
+    ListenerExecutor getTickExecutor();
+
+    /**
+     * Limits the packets held back for a single player between pings, a limit of 0 or lower is disabled.
+     * Players exceeding a limit are handled by the {@link QueueOverflowPolicy}.
+     * While the channel of a player is not writable, ticks are merged into a single ping bracket so the
+     * limits also bound how far a lagging player can fall behind.
+     * Both limits are disabled by default.
+     * <p>
+     * @param maxMessages - Maximum number of queued packets per player
+     * @param maxBytes    - Maximum number of queued bytes per player, only counting packets that are already encoded
+     */
+    void setQueueLimits(int maxMessages, long maxBytes);
+
+    /**
+     * Sets the policy deciding what happens with players exceeding the queue limits.
+     * By default queued packets are sent right away, see {@link QueueOverflowAction#SPILL}.
+     * <p>
+     * @param policy - Overflow policy
+     */
+    void setQueueOverflowPolicy(@NotNull QueueOverflowPolicy policy);
+
+    /**
+     * Gets the registry with counters, gauges and histograms describing the runtime behaviour of Pledge.
+     * <p>
+     * @return - Metrics registry
+     */
+    MetricsRegistry getMetrics();
+
+    /**
+     * Sets if metrics should be exposed as attributes of an MBean on the platform MBean server.
+     * The MBean is registered as dev.thomazz.pledge:type=Metrics with the plugin name as extra key.
+     * Disabled by default.
+     * <p>
+     * @param enabled - If metrics should be exposed through JMX
+     */
+    void setJmxMetrics(boolean enabled);
+
+    /**
+     * Sets the port of an HTTP endpoint serving metrics in the Prometheus text format at /metrics.
+     * The endpoint only listens on the loopback address.
+     * A port of 0 or lower stops the endpoint, which is the default.
+     * <p>
+     * @param port - Port to listen on
+     */
+    void setMetricsEndpoint(int port);
+
     /**
      * Creates a client pinger.
      * See documentation in {@link ClientPinger} for more info.
@@ -50,6 +136,67 @@ public interface Pledge {
      */
     FrameClientPinger createFramePinger(int startId, int endId);
 
+    /**
+     * Creates a client pinger with a range of IDs not used by any other pinger, counting down from -1.
+     * Useful when multiple plugins share the ID space of the ping packet, which is small for transactions.
+     * Throws an {@link IllegalStateException} if no free range of the size is left.
+     * <p>
+     * @param size - Number of IDs in the range
+     * @return     - Client pinger instance
+     */
+    ClientPinger createPinger(int size);
+
+    /**
+     * Creates a frame client pinger with a range of IDs not used by any other pinger, counting down from -1.
+     * See {@link #createPinger(int)} for more info.
+     * <p>
+     * @param size - Number of IDs in the range
+     * @return     - Frame client pinger instance
+     */
+    FrameClientPinger createFramePinger(int size);
+
+    /**
+     * Registers a new packet category, see {@link PacketCategory} for more info.
+     * Packet types can be added to the returned category.
+     * <p>
+     * @param name        - Name of the category
+     * @param queueBypass - If packets in the category should be sent instantly instead of being queued
+     * @return            - Registered category
+     */
+    PacketCategory registerPacketCategory(@NotNull String name, boolean queueBypass);
+
+    /**
+     * Sets if pings should be written as pre-encoded frames directly below the Minecraft packet encoder.
+     * This skips creating and encoding a ping packet for every ping sent.
+     * The frame layout is learned from the first ping encoded by the server, and frames for the ID ranges of
+     * created pingers are encoded ahead of time.
+     * Disabled by default, as handlers placed above the encoder by other plugins will not see these pings.
+     * <p>
+     * @param enabled - If pre-encoded pings should be used
+     */
+    void setPreEncodedPings(boolean enabled);
+
+    /**
+     * Sets if pongs should be recognized from raw frames before they are decoded.
+     * Inbound packets are then checked by their length and packet ID instead of inspecting decoded packets.
+     * Each channel learns the pong frame layout from the first pong it decodes while in the play state.
+     * Disabled by default.
+     * <p>
+     * @param enabled - If raw pong sniffing should be used
+     */
+    void setRawPongSniffing(boolean enabled);
+
+    /**
+     * Sets if flushes should be coalesced into a single flush per channel at every tick boundary.
+     * Pings and drained packets are then only written, and each channel is flushed once after all pings of
+     * the tick start or tick end are written. Pings sent outside of pingers are flushed at the next tick boundary
+     * at the latest.
+     * Disabled by default.
+     * <p>
+     * @param enabled - If flushes should be coalesced
+     */
+    void setFlushCoalescing(boolean enabled);
+
     /**
      * Destroys the API instance.
      * A new API instance can be retrieved and created using {@link PledgeImpl#getOrCreate(Plugin)}
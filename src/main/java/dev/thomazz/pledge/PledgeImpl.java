@@ -1,20 +1,42 @@
 package dev.thomazz.pledge;
 
-import dev.thomazz.pledge.event.PingSendEvent;
-import dev.thomazz.pledge.event.PongReceiveEvent;
-import dev.thomazz.pledge.event.TickEndEvent;
-import dev.thomazz.pledge.event.TickStartEvent;
+import dev.thomazz.pledge.event.PingEventBus;
+import dev.thomazz.pledge.event.TickClock;
+import dev.thomazz.pledge.event.TickDriver;
+import dev.thomazz.pledge.metrics.MetricsEndpoint;
+import dev.thomazz.pledge.metrics.MetricsMBean;
+import dev.thomazz.pledge.metrics.MetricsRegistry;
+import dev.thomazz.pledge.metrics.PingLatency;
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.network.FlushCoalescer;
 import dev.thomazz.pledge.network.NetworkPongListener;
+import dev.thomazz.pledge.network.NetworkPongSniffer;
+import dev.thomazz.pledge.network.encode.PingFrameCache;
+import dev.thomazz.pledge.network.queue.QueueLimits;
+import dev.thomazz.pledge.network.queue.QueueOverflowPolicy;
+import dev.thomazz.pledge.packet.PacketCategory;
+import dev.thomazz.pledge.packet.PacketFiltering;
 import dev.thomazz.pledge.packet.PacketProviderFactory;
 import dev.thomazz.pledge.packet.PingPacketProvider;
 import dev.thomazz.pledge.pinger.ClientPinger;
 import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.EventLoopFanout;
+import dev.thomazz.pledge.pinger.IdSpace;
+import dev.thomazz.pledge.pinger.ListenerExecutor;
+import dev.thomazz.pledge.pinger.PongDispatchIndex;
 import dev.thomazz.pledge.pinger.frame.FrameClientPinger;
 import dev.thomazz.pledge.pinger.frame.FrameClientPingerImpl;
+import dev.thomazz.pledge.session.PlayerSession;
+import dev.thomazz.pledge.session.SessionRegistry;
 import dev.thomazz.pledge.util.ChannelAccess;
 import dev.thomazz.pledge.util.ChannelUtils;
 import dev.thomazz.pledge.util.TickEndTask;
+import dev.thomazz.pledge.util.TickStartTask;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -27,14 +49,18 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Getter
@@ -42,91 +68,231 @@ public class PledgeImpl implements Pledge, Listener {
     static PledgeImpl instance;
 
     private final Logger logger;
+    private final String pluginName;
     private final PingPacketProvider packetProvider;
-
-    private final BukkitTask startTask;
+    private final PingFrameCache frameCache;
+    private final IdSpace idSpace;
+    private final PingEventBus eventBus;
+    @Getter(AccessLevel.PACKAGE)
+    private final TickDriver tickDriver;
+    private final FlushCoalescer flushCoalescer = new FlushCoalescer();
+    private final PingLatency latency = new PingLatency();
+    private final QueueLimits queueLimits = new QueueLimits(this::untrack);
+    private final ListenerExecutor tickExecutor = ListenerExecutor.tickSynchronized(1024);
+
+    private final TickStartTask startTask;
     private final TickEndTask endTask;
 
-    private final List<ClientPingerImpl> clientPingers = new ArrayList<>();
-    private final Map<Player, Channel> playerChannels = new HashMap<>();
+    private final List<ClientPingerImpl> clientPingers = new CopyOnWriteArrayList<>();
+    private final SessionRegistry sessions = new SessionRegistry();
+    private final EventLoopFanout sessionLoops;
+    private final Consumer<PlayerSession> flushAction = this.flushCoalescer::flushPending;
 
-    PledgeImpl(Plugin plugin) {
-        this.logger = plugin.getLogger();
-        this.packetProvider = PacketProviderFactory.buildPingProvider();
+    private volatile PongDispatchIndex pongIndex = PongDispatchIndex.EMPTY;
 
-        PluginManager manager = Bukkit.getPluginManager();
-        BukkitScheduler scheduler = Bukkit.getScheduler();
+    private volatile boolean rawPongSniffing = false;
 
-        this.startTask = scheduler.runTaskTimer(plugin, () -> manager.callEvent(new TickStartEvent()), 0L, 1L);
-        this.endTask = TickEndTask.create(() -> manager.callEvent(new TickEndEvent()));
+    private ObjectName metricsBean;
+    private MetricsEndpoint metricsEndpoint;
 
-        // Setup for all players
-        Bukkit.getOnlinePlayers().forEach(this::setupPlayer);
+    PledgeImpl(Plugin plugin) {
+        this(
+            plugin.getLogger(),
+            plugin.getName(),
+            PacketProviderFactory.buildPingProvider(),
+            Bukkit.getScheduler(),
+            Bukkit.getPluginManager(),
+            plugin
+        );
+
+        // Setup for all players, these are already in the play state
+        Bukkit.getOnlinePlayers().forEach(player -> this.setupPlayer(player, true));
 
         // Register as listener after setup
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
-    private void setupPlayer(Player player) {
-        Channel channel = ChannelAccess.getChannel(player);
-        this.playerChannels.put(player, channel);
+    // Runs without a server, players and ticks are driven by the caller
+    PledgeImpl(Logger logger, PingPacketProvider packetProvider) {
+        this(logger, "headless", packetProvider, null, null, null);
+    }
+
+    private PledgeImpl(Logger logger, String pluginName, PingPacketProvider packetProvider, BukkitScheduler scheduler, PluginManager manager, Plugin plugin) {
+        this.logger = logger;
+        this.pluginName = pluginName;
+        this.packetProvider = packetProvider;
+        this.frameCache = new PingFrameCache(this.packetProvider);
+        this.idSpace = new IdSpace(packetProvider.getLowerBound(), packetProvider.getUpperBound());
+        this.eventBus = new PingEventBus(logger);
+        this.tickDriver = new TickDriver(logger);
+        this.sessionLoops = new EventLoopFanout(logger);
+
+        // Registered first, so pings are on their way before other listeners run
+        this.tickDriver.getClock().onTickStart((tick, time) -> this.onTickStart());
+        this.tickDriver.getClock().onTickEnd((tick, time) -> this.onTickEnd());
+
+        if (plugin != null) {
+            this.startTask = TickStartTask.create(plugin, scheduler, manager, this.tickDriver::start);
+            this.endTask = TickEndTask.create(this.tickDriver::end);
+        } else {
+            this.startTask = null;
+            this.endTask = null;
+        }
+
+        PledgeMetrics.REGISTRY.gauge("pledge_sessions", "Players with an active session", () -> this.sessions.getSessions().size());
+        PledgeMetrics.REGISTRY.gauge("pledge_outstanding_pings", "Pings without a pong over all players", () -> this.outstandingPings(false));
+        PledgeMetrics.REGISTRY.gauge("pledge_outstanding_pings_max", "Most pings without a pong for a single player", () -> this.outstandingPings(true));
+        PledgeMetrics.REGISTRY.gauge("pledge_flushes", "Flushes written to player channels", this.flushCoalescer::getFlushes);
+        PledgeMetrics.REGISTRY.gauge("pledge_coalesced_flushes", "Flushes merged into a single flush at the tick boundary", this.flushCoalescer::getCoalescedFlushes);
+    }
+
+    private void setupPlayer(Player player, boolean play) {
+        this.setupPlayer(player, ChannelAccess.getChannel(player), play);
+    }
+
+    void setupPlayer(Player player, Channel channel, boolean play) {
+        PlayerSession session = PlayerSession.attach(channel, player);
+        this.sessions.register(session);
+        this.sessionLoops.add(session);
 
         // Inject pong listener
+        NetworkPongListener listener = new NetworkPongListener(this, player, play);
         channel.pipeline().addBefore(
             "packet_handler",
             "pledge_packet_listener",
-            new NetworkPongListener(this, player)
+            listener
         );
 
+        if (this.rawPongSniffing) {
+            this.injectSniffer(player, channel, listener);
+        }
+
         // Register to client pingers
         this.clientPingers.forEach(pinger -> pinger.registerPlayer(player));
     }
 
-    private void teardownPlayer(Player player) {
+    void teardownPlayer(Player player) {
+        PlayerSession session = this.sessions.get(player);
+        if (session == null || session.getPlayer() != player) {
+            return;
+        }
+
         // Unregister from client pingers
         this.clientPingers.forEach(pinger -> pinger.unregisterPlayer(player));
 
         // Unregister pong listener
-        getChannel(player).ifPresent(channel -> {
-            channel.pipeline().remove("pledge_packet_listener");
+        Channel channel = session.getChannel();
+        ChannelUtils.runInEventLoop(channel, () -> {
+            if (channel.pipeline().get("pledge_packet_listener") != null) {
+                channel.pipeline().remove("pledge_packet_listener");
+            }
         });
+        this.ejectSniffer(channel);
 
-        this.playerChannels.remove(player);
+        this.sessions.unregister(session);
+        this.sessionLoops.remove(session);
+        session.detach();
+    }
+
+    // Sits right before the decoder, where frames are split and decompressed
+    private void injectSniffer(Player player, Channel channel, NetworkPongListener listener) {
+        ChannelUtils.runInEventLoop(channel, () -> {
+            ChannelPipeline pipeline = channel.pipeline();
+            if (pipeline.get("decoder") != null && pipeline.get(NetworkPongSniffer.class) == null) {
+                NetworkPongSniffer sniffer = new NetworkPongSniffer(this, player);
+                pipeline.addBefore("decoder", "pledge_pong_sniffer", sniffer);
+                listener.setSniffer(sniffer);
+            }
+        });
+    }
+
+    private void ejectSniffer(Channel channel) {
+        ChannelUtils.runInEventLoop(channel, () -> {
+            NetworkPongListener listener = channel.attr(NetworkPongListener.KEY).get();
+            if (listener != null) {
+                listener.setSniffer(null);
+            }
+
+            if (channel.pipeline().get(NetworkPongSniffer.class) != null) {
+                channel.pipeline().remove(NetworkPongSniffer.class);
+            }
+        });
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     void onPlayerLogin(PlayerLoginEvent event) {
-        this.setupPlayer(event.getPlayer());
+        this.setupPlayer(event.getPlayer(), false);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     void onPlayerQuit(PlayerQuitEvent event) {
-        this.playerChannels.remove(event.getPlayer());
         this.teardownPlayer(event.getPlayer());
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
-    void onTickStart(TickStartEvent ignored) {
+    private void onTickStart() {
+        // Deliver confirmations of the last tick before the pings of this tick go out
+        this.tickExecutor.drain();
+
+        long start = System.nanoTime();
         this.clientPingers.forEach(ClientPingerImpl::tickStart);
+        this.flushTickBoundary();
+        PledgeMetrics.TICK_START_TIME.record(System.nanoTime() - start);
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
-    void onTickStart(TickEndEvent ignored) {
+    private void onTickEnd() {
+        long start = System.nanoTime();
         this.clientPingers.forEach(ClientPingerImpl::tickEnd);
+        this.flushTickBoundary();
+        PledgeMetrics.TICK_END_TIME.record(System.nanoTime() - start);
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
-    void onPongReceive(PongReceiveEvent event) {
-        Player player = event.getPlayer();
-        int id = event.getId();
+    // Queued after the pinger tasks on every event loop, so this runs after all pings of the tick are written
+    private void flushTickBoundary() {
+        if (this.flushCoalescer.isEnabled()) {
+            this.sessionLoops.execute(this.flushAction);
+        }
+    }
+
+    // The session is null when the player is not tracked (anymore), the pong is then only posted
+    public void receivePong(Player player, PlayerSession session, int id) {
+        this.eventBus.postPongReceive(player, id);
+
+        if (session != null && this.dispatchPong(session, id)) {
+            PledgeMetrics.PONGS_MATCHED.increment();
+        } else {
+            PledgeMetrics.PONGS_UNMATCHED.increment();
+        }
+    }
 
-        this.clientPingers.stream()
-            .filter(pinger -> pinger.isInRange(id))
-            .forEach(
-                pinger -> pinger.getPingData(player)
-                    .flatMap(data -> data.confirm(id))
-                    .ifPresent(pong -> pinger.onReceive(player, pong))
-            );
+    private boolean dispatchPong(PlayerSession session, int id) {
+        ClientPingerImpl[] pingers = this.pongIndex.lookup(id);
+        if (pingers == null) {
+            return false;
+        }
+
+        boolean matched = false;
+        for (ClientPingerImpl pinger : pingers) {
+            matched |= pinger.receivePong(session, id);
+        }
+
+        return matched;
+    }
+
+    // Stops tracking a player with all pingers after exceeding the queue limits
+    private void untrack(PlayerSession session) {
+        Player player = session.getPlayer();
+        this.logger.warning("Stopped tracking " + player.getName() + " after exceeding the queue limits");
+        this.clientPingers.forEach(pinger -> pinger.unregisterPlayer(player));
+    }
+
+    private long outstandingPings(boolean max) {
+        long result = 0L;
+        for (PlayerSession session : this.sessions.getSessions()) {
+            int outstanding = session.getOutstandingPings();
+            result = max ? Math.max(result, outstanding) : result + outstanding;
+        }
+
+        return result;
     }
 
     @Override
@@ -146,34 +312,174 @@ public class PledgeImpl implements Pledge, Listener {
 
     public void sendPingRaw(Player player, Channel channel, int pingId) {
         try {
+            if (this.frameCache.isEnabled() && this.sendPingEncoded(player, channel, pingId)) {
+                return;
+            }
+
             Object packet = this.packetProvider.buildPacket(pingId);
-            Bukkit.getPluginManager().callEvent(new PingSendEvent(player, pingId));
-            channel.writeAndFlush(packet);
+            this.eventBus.postPingSend(player, pingId);
+            PledgeMetrics.PINGS_SENT.increment();
+            channel.write(packet);
+            this.flushCoalescer.flush(PlayerSession.get(channel), channel);
         } catch (Exception ex) {
-            this.logger.severe(String.format("Failed to send ping! Player:%s Id:%o", player.getName(), pingId));
-            ex.printStackTrace();
+            this.logger.log(Level.SEVERE, String.format("Failed to send ping! Player:%s Id:%o", player.getName(), pingId), ex);
         }
     }
 
+    // Writes an encoded ping frame directly below the packet encoder when the channel is in the play state
+    private boolean sendPingEncoded(Player player, Channel channel, int pingId) throws Exception {
+        NetworkPongListener listener = channel.attr(NetworkPongListener.KEY).get();
+        ChannelHandlerContext encoder = listener != null ? listener.getPlayEncoder(channel) : null;
+        if (encoder == null) {
+            return false;
+        }
+
+        this.eventBus.postPingSend(player, pingId);
+        PledgeMetrics.PINGS_SENT.increment();
+
+        ByteBuf frame = this.frameCache.frame(encoder.alloc(), pingId);
+        if (frame != null) {
+            encoder.write(frame);
+        } else if (!this.frameCache.learn(encoder, this.packetProvider.buildPacket(pingId), pingId)) {
+            this.logger.warning("Encoded ping frame does not match the expected layout, disabled pre-encoded pings");
+        }
+
+        this.flushCoalescer.flush(PlayerSession.get(channel), encoder);
+
+        return true;
+    }
+
     @Override
     public Optional<Channel> getChannel(@NotNull Player player) {
-        return Optional.ofNullable(this.playerChannels.get(player));
+        return Optional.ofNullable(this.sessions.get(player)).map(PlayerSession::getChannel);
     }
 
     @Override
     public ClientPinger createPinger(int startId, int endId) {
         ClientPingerImpl pinger = new ClientPingerImpl(this, startId, endId);
-        this.clientPingers.add(pinger);
+        this.registerPinger(pinger);
         return pinger;
     }
 
     @Override
     public FrameClientPinger createFramePinger(int startId, int endId) {
         FrameClientPingerImpl pinger = new FrameClientPingerImpl(this, startId, endId);
-        this.clientPingers.add(pinger);
+        this.registerPinger(pinger);
         return pinger;
     }
 
+    @Override
+    public ClientPinger createPinger(int size) {
+        int[] range = this.idSpace.lease(size);
+        return this.createPinger(range[0], range[1]);
+    }
+
+    @Override
+    public FrameClientPinger createFramePinger(int size) {
+        int[] range = this.idSpace.lease(size);
+        return this.createFramePinger(range[0], range[1]);
+    }
+
+    private synchronized void registerPinger(ClientPingerImpl pinger) {
+        this.idSpace.reserve(pinger.startId(), pinger.endId());
+        this.clientPingers.add(pinger);
+        this.pongIndex = PongDispatchIndex.of(this.clientPingers);
+        this.frameCache.addRange(pinger.startId(), pinger.endId());
+    }
+
+    @Override
+    public PacketCategory registerPacketCategory(@NotNull String name, boolean queueBypass) {
+        return PacketFiltering.registerCategory(name, queueBypass);
+    }
+
+    @Override
+    public void setPreEncodedPings(boolean enabled) {
+        this.frameCache.setEnabled(enabled);
+    }
+
+    @Override
+    public void setFlushCoalescing(boolean enabled) {
+        this.flushCoalescer.setEnabled(enabled);
+
+        // Make sure nothing is left unflushed when turning it off
+        if (!enabled) {
+            this.sessionLoops.execute(this.flushAction);
+        }
+    }
+
+    @Override
+    public void setQueueLimits(int maxMessages, long maxBytes) {
+        this.queueLimits.setMaxMessages(maxMessages);
+        this.queueLimits.setMaxBytes(maxBytes);
+    }
+
+    @Override
+    public void setQueueOverflowPolicy(@NotNull QueueOverflowPolicy policy) {
+        this.queueLimits.setPolicy(policy);
+    }
+
+    @Override
+    public TickClock getTickClock() {
+        return this.tickDriver.getClock();
+    }
+
+    @Override
+    public MetricsRegistry getMetrics() {
+        return PledgeMetrics.REGISTRY;
+    }
+
+    @Override
+    public synchronized void setJmxMetrics(boolean enabled) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            if (enabled && this.metricsBean == null) {
+                ObjectName name = new ObjectName("dev.thomazz.pledge:type=Metrics,plugin=" + ObjectName.quote(this.pluginName));
+                server.registerMBean(new MetricsMBean(PledgeMetrics.REGISTRY), name);
+                this.metricsBean = name;
+            } else if (!enabled && this.metricsBean != null) {
+                server.unregisterMBean(this.metricsBean);
+                this.metricsBean = null;
+            }
+        } catch (JMException ex) {
+            this.logger.warning("Could not update metrics MBean: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void setMetricsEndpoint(int port) {
+        if (this.metricsEndpoint != null) {
+            this.metricsEndpoint.stop();
+            this.metricsEndpoint = null;
+        }
+
+        if (port > 0) {
+            try {
+                this.metricsEndpoint = new MetricsEndpoint(PledgeMetrics.REGISTRY, port);
+            } catch (IOException ex) {
+                this.logger.warning("Could not start metrics endpoint on port " + port + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void setRawPongSniffing(boolean enabled) {
+        this.rawPongSniffing = enabled;
+
+        this.sessions.getSessions().forEach(session -> {
+            Player player = session.getPlayer();
+            Channel channel = session.getChannel();
+            if (enabled) {
+                NetworkPongListener listener = channel.attr(NetworkPongListener.KEY).get();
+                if (listener != null) {
+                    this.injectSniffer(player, channel, listener);
+                }
+            } else {
+                this.ejectSniffer(channel);
+            }
+        });
+    }
+
     @Override
     public void destroy() {
         if (!this.equals(PledgeImpl.instance)) {
@@ -181,11 +487,23 @@ public class PledgeImpl implements Pledge, Listener {
         }
 
         // Teardown for all players
-        Bukkit.getOnlinePlayers().forEach(this::teardownPlayer);
+        this.sessions.getSessions().forEach(session -> this.teardownPlayer(session.getPlayer()));
 
         HandlerList.unregisterAll(this);
-        this.startTask.cancel();
-        this.endTask.cancel();
+        if (this.startTask != null) {
+            this.startTask.cancel();
+            this.endTask.cancel();
+        }
+
+        this.frameCache.release();
+
+        this.setJmxMetrics(false);
+        this.setMetricsEndpoint(0);
+        PledgeMetrics.REGISTRY.unregister("pledge_sessions");
+        PledgeMetrics.REGISTRY.unregister("pledge_outstanding_pings");
+        PledgeMetrics.REGISTRY.unregister("pledge_outstanding_pings_max");
+        PledgeMetrics.REGISTRY.unregister("pledge_flushes");
+        PledgeMetrics.REGISTRY.unregister("pledge_coalesced_flushes");
 
         PledgeImpl.instance = null;
     }
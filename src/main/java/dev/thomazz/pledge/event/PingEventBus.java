@@ -0,0 +1,96 @@
+package dev.thomazz.pledge.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatches pings and pongs to {@link PingHandler} objects without creating event objects.
+ * The {@link PingSendEvent} and {@link PongReceiveEvent} are only created and called when they have listeners.
+ */
+public final class PingEventBus {
+    private final Logger logger;
+
+    private volatile PingHandler[] sendHandlers = new PingHandler[0];
+    private volatile PingHandler[] receiveHandlers = new PingHandler[0];
+
+    public PingEventBus(@NotNull Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Registers a handler called when a ping is sent to a player.
+     * <p>
+     * @param handler - Handler to register
+     */
+    public synchronized void onPingSend(@NotNull PingHandler handler) {
+        this.sendHandlers = PingEventBus.add(this.sendHandlers, handler);
+    }
+
+    /**
+     * Registers a handler called when a pong is received from a player.
+     * <p>
+     * @param handler - Handler to register
+     */
+    public synchronized void onPongReceive(@NotNull PingHandler handler) {
+        this.receiveHandlers = PingEventBus.add(this.receiveHandlers, handler);
+    }
+
+    /**
+     * Unregisters a handler registered with {@link #onPingSend(PingHandler)} or {@link #onPongReceive(PingHandler)}.
+     * <p>
+     * @param handler - Handler to unregister
+     */
+    public synchronized void unregister(@NotNull PingHandler handler) {
+        this.sendHandlers = PingEventBus.remove(this.sendHandlers, handler);
+        this.receiveHandlers = PingEventBus.remove(this.receiveHandlers, handler);
+    }
+
+    public void postPingSend(Player player, int id) {
+        if (PingEventBus.hasListeners(PingSendEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new PingSendEvent(player, id));
+        }
+
+        for (PingHandler handler : this.sendHandlers) {
+            this.call(handler, player, id);
+        }
+    }
+
+    public void postPongReceive(Player player, int id) {
+        if (PingEventBus.hasListeners(PongReceiveEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new PongReceiveEvent(player, id));
+        }
+
+        for (PingHandler handler : this.receiveHandlers) {
+            this.call(handler, player, id);
+        }
+    }
+
+    // A failing handler should not keep the others from running, or the ping from being sent or tracked
+    private void call(PingHandler handler, Player player, int id) {
+        try {
+            handler.handle(player, id);
+        } catch (Throwable ex) {
+            this.logger.log(Level.SEVERE, "Ping handler failed for player: " + player.getName() + ", id: " + id, ex);
+        }
+    }
+
+    private static boolean hasListeners(HandlerList handlerList) {
+        return handlerList.getRegisteredListeners().length > 0;
+    }
+
+    private static PingHandler[] add(PingHandler[] handlers, PingHandler handler) {
+        PingHandler[] updated = Arrays.copyOf(handlers, handlers.length + 1);
+        updated[handlers.length] = handler;
+        return updated;
+    }
+
+    private static PingHandler[] remove(PingHandler[] handlers, PingHandler handler) {
+        return Arrays.stream(handlers).filter(other -> other != handler).toArray(PingHandler[]::new);
+    }
+}
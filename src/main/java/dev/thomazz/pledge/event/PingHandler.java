@@ -0,0 +1,18 @@
+package dev.thomazz.pledge.event;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Handler for ping or pong traffic registered to a {@link PingEventBus}.
+ * Note: Executed from netty thread
+ */
+@FunctionalInterface
+public interface PingHandler {
+    /**
+     * Called when a ping is sent to or a pong is received from a player.
+     * <p>
+     * @param player - Player the ping is sent to or the pong is received from
+     * @param id     - ID of the ping or pong
+     */
+    void handle(Player player, int id);
+}
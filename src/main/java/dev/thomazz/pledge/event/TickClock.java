@@ -0,0 +1,138 @@
+package dev.thomazz.pledge.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of server ticks and calls {@link TickListener} objects directly at the start and end of every tick.
+ * Tick numbers increase by one at the start of every tick, and can be used to relate pings and pongs to ticks.
+ * <p>
+ * The {@link TickStartEvent} and {@link TickEndEvent} are still called, but only when they have listeners.
+ */
+public final class TickClock {
+    private final Logger logger;
+
+    private volatile TickListener[] startListeners = new TickListener[0];
+    private volatile TickListener[] endListeners = new TickListener[0];
+
+    private volatile long tick = -1L;
+    private volatile long tickStart = -1L;
+    private volatile long tickEnd = -1L;
+
+    TickClock(@NotNull Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Registers a listener called at the start of every tick.
+     * <p>
+     * @param listener - Listener to register
+     */
+    public synchronized void onTickStart(@NotNull TickListener listener) {
+        this.startListeners = TickClock.add(this.startListeners, listener);
+    }
+
+    /**
+     * Registers a listener called at the end of every tick.
+     * <p>
+     * @param listener - Listener to register
+     */
+    public synchronized void onTickEnd(@NotNull TickListener listener) {
+        this.endListeners = TickClock.add(this.endListeners, listener);
+    }
+
+    /**
+     * Unregisters a listener registered with {@link #onTickStart(TickListener)} or {@link #onTickEnd(TickListener)}.
+     * <p>
+     * @param listener - Listener to unregister
+     */
+    public synchronized void unregister(@NotNull TickListener listener) {
+        this.startListeners = TickClock.remove(this.startListeners, listener);
+        this.endListeners = TickClock.remove(this.endListeners, listener);
+    }
+
+    /**
+     * Number of the current tick, starting at 0 for the first tick after Pledge was created.
+     * <p>
+     * @return - Tick number, -1 before the first tick
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Time the current tick started.
+     * <p>
+     * @return - Time from {@link System#nanoTime()}, -1 before the first tick
+     */
+    public long getTickStart() {
+        return this.tickStart;
+    }
+
+    /**
+     * Time the last tick ended, before {@link #getTickStart()} while the current tick is still running.
+     * <p>
+     * @return - Time from {@link System#nanoTime()}, -1 before the first tick ended
+     */
+    public long getTickEnd() {
+        return this.tickEnd;
+    }
+
+    // Only called through the tick driver of the owner of the clock
+    void start() {
+        long time = System.nanoTime();
+        long tick = this.tick + 1L;
+        this.tickStart = time;
+        this.tick = tick;
+
+        for (TickListener listener : this.startListeners) {
+            this.call(listener, tick, time);
+        }
+
+        if (TickClock.hasListeners(TickStartEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new TickStartEvent());
+        }
+    }
+
+    void end() {
+        long time = System.nanoTime();
+        long tick = this.tick;
+        this.tickEnd = time;
+
+        for (TickListener listener : this.endListeners) {
+            this.call(listener, tick, time);
+        }
+
+        if (TickClock.hasListeners(TickEndEvent.getHandlerList())) {
+            Bukkit.getPluginManager().callEvent(new TickEndEvent());
+        }
+    }
+
+    // A failing listener should not keep the others, or the rest of the tick, from running
+    private void call(TickListener listener, long tick, long time) {
+        try {
+            listener.onTick(tick, time);
+        } catch (Throwable ex) {
+            this.logger.log(Level.SEVERE, "Tick listener failed in tick: " + tick, ex);
+        }
+    }
+
+    private static boolean hasListeners(HandlerList handlerList) {
+        return handlerList.getRegisteredListeners().length > 0;
+    }
+
+    private static TickListener[] add(TickListener[] listeners, TickListener listener) {
+        TickListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        return updated;
+    }
+
+    private static TickListener[] remove(TickListener[] listeners, TickListener listener) {
+        return Arrays.stream(listeners).filter(other -> other != listener).toArray(TickListener[]::new);
+    }
+}
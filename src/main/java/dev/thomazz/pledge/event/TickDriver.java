@@ -0,0 +1,24 @@
+package dev.thomazz.pledge.event;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.logging.Logger;
+
+// Moves a tick clock forward, only the owner of the driver can start and end ticks of the clock it exposes
+@Getter
+public final class TickDriver {
+    private final TickClock clock;
+
+    public TickDriver(@NotNull Logger logger) {
+        this.clock = new TickClock(logger);
+    }
+
+    public void start() {
+        this.clock.start();
+    }
+
+    public void end() {
+        this.clock.end();
+    }
+}
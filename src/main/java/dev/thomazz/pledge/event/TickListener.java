@@ -0,0 +1,16 @@
+package dev.thomazz.pledge.event;
+
+/**
+ * Listener for tick boundaries registered to a {@link TickClock}.
+ * Note: Executed from the main thread
+ */
+@FunctionalInterface
+public interface TickListener {
+    /**
+     * Called at the start or end of a server tick.
+     * <p>
+     * @param tick - Number of the tick, see {@link TickClock#getTick()}
+     * @param time - Time of the tick boundary from {@link System#nanoTime()}
+     */
+    void onTick(long tick, long time);
+}
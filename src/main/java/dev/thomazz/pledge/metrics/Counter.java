@@ -0,0 +1,22 @@
+package dev.thomazz.pledge.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter that can be updated concurrently without contention.
+ */
+public class Counter {
+    private final LongAdder adder = new LongAdder();
+
+    public void increment() {
+        this.adder.increment();
+    }
+
+    public void add(long amount) {
+        this.adder.add(amount);
+    }
+
+    public long get() {
+        return this.adder.sum();
+    }
+}
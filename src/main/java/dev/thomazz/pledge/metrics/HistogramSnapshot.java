@@ -0,0 +1,97 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.Getter;
+
+/**
+ * Immutable copy of the values recorded by a {@link LatencyHistogram}.
+ */
+public class HistogramSnapshot {
+    private final long[] counts;
+
+    @Getter
+    private final long count;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+
+        long count = 0L;
+        for (long bucket : counts) {
+            count += bucket;
+        }
+
+        this.count = count;
+    }
+
+    /**
+     * Gets the latency at a percentile, or 0 if nothing was recorded.
+     * <p>
+     * @param percentile - Percentile between 0 and 100
+     * @return           - Latency in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0L) {
+            return 0L;
+        }
+
+        double clamped = Math.max(0.0D, Math.min(100.0D, percentile));
+        long target = Math.max(1L, (long) Math.ceil(clamped / 100.0D * this.count));
+
+        long seen = 0L;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return LatencyHistogram.highestValue(i);
+            }
+        }
+
+        return this.getMax();
+    }
+
+    /**
+     * Gets the highest recorded latency, within the precision of the histogram.
+     * <p>
+     * @return - Latency in nanoseconds
+     */
+    public long getMax() {
+        for (int i = this.counts.length - 1; i >= 0; i--) {
+            if (this.counts[i] > 0L) {
+                return LatencyHistogram.highestValue(i);
+            }
+        }
+
+        return 0L;
+    }
+
+    /**
+     * Gets the mean recorded latency, within the precision of the histogram.
+     * <p>
+     * @return - Latency in nanoseconds
+     */
+    public double getMean() {
+        if (this.count == 0L) {
+            return 0.0D;
+        }
+
+        double total = 0.0D;
+        for (int i = 0; i < this.counts.length; i++) {
+            total += (double) this.counts[i] * LatencyHistogram.highestValue(i);
+        }
+
+        return total / this.count;
+    }
+
+    /**
+     * Combines this snapshot with another one.
+     * <p>
+     * @param other - Snapshot to add
+     * @return      - Combined snapshot
+     */
+    public HistogramSnapshot merge(HistogramSnapshot other) {
+        long[] counts = this.counts.clone();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        return new HistogramSnapshot(counts);
+    }
+}
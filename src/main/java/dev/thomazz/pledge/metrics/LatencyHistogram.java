@@ -0,0 +1,84 @@
+package dev.thomazz.pledge.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-bucketed histogram of latencies in nanoseconds.
+ * Values are recorded lock-free and kept with a relative precision of about 6%.
+ */
+public class LatencyHistogram {
+    static final int SUB_BITS = 4;
+    static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BITS;
+
+    // Values above roughly 2.4 hours are recorded in the last bucket
+    static final int MAX_EXPONENT = 42;
+    static final int BUCKETS = (LatencyHistogram.MAX_EXPONENT - LatencyHistogram.SUB_BITS + 2) * LatencyHistogram.SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+    /**
+     * Records a latency, negative values are ignored.
+     * <p>
+     * @param nanos - Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos >= 0) {
+            this.counts.incrementAndGet(LatencyHistogram.bucket(nanos));
+        }
+    }
+
+    /**
+     * Takes a snapshot of the recorded values.
+     * <p>
+     * @return - Snapshot of the histogram
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts.get(i);
+        }
+
+        return new HistogramSnapshot(counts);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values and resets the histogram.
+     * Every recorded value ends up in exactly one snapshot.
+     * <p>
+     * @return - Snapshot of the histogram
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.counts.getAndSet(i, 0L);
+        }
+
+        return new HistogramSnapshot(counts);
+    }
+
+    static int bucket(long value) {
+        if (value < LatencyHistogram.SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), LatencyHistogram.MAX_EXPONENT);
+        if (exponent == LatencyHistogram.MAX_EXPONENT && value >= 1L << (LatencyHistogram.MAX_EXPONENT + 1)) {
+            return LatencyHistogram.BUCKETS - 1;
+        }
+
+        int sub = (int) (value >>> (exponent - LatencyHistogram.SUB_BITS)) & (LatencyHistogram.SUB_BUCKETS - 1);
+        return (exponent - LatencyHistogram.SUB_BITS + 1) * LatencyHistogram.SUB_BUCKETS + sub;
+    }
+
+    // Highest value that ends up in the bucket
+    static long highestValue(int bucket) {
+        if (bucket < LatencyHistogram.SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / LatencyHistogram.SUB_BUCKETS + LatencyHistogram.SUB_BITS - 1;
+        int sub = bucket % LatencyHistogram.SUB_BUCKETS;
+        int shift = exponent - LatencyHistogram.SUB_BITS;
+        return ((long) (LatencyHistogram.SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+}
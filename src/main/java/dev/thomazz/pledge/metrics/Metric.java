@@ -0,0 +1,27 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Named value in a {@link MetricsRegistry}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class Metric {
+    private final String name;
+    private final String help;
+    private final MetricType type;
+
+    // Counters and gauges are read through the supplier, histograms through the histogram
+    private final LongSupplier value;
+    private final LatencyHistogram histogram;
+
+    public enum MetricType {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+}
@@ -0,0 +1,107 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Exposes every metric in the registry as read-only attribute, histograms as percentiles in seconds
+@RequiredArgsConstructor
+public class MetricsMBean implements DynamicMBean {
+    private static final String[] HISTOGRAM_SUFFIXES = {"_count", "_p50", "_p90", "_p99", "_p999", "_max"};
+    private static final double[] HISTOGRAM_PERCENTILES = {-1.0D, 50.0D, 90.0D, 99.0D, 99.9D, 100.0D};
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0D;
+
+    private final MetricsRegistry registry;
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Metric metric = this.registry.getMetric(attribute);
+        if (metric != null && metric.getType() != Metric.MetricType.HISTOGRAM) {
+            return metric.getValue().getAsLong();
+        }
+
+        for (int i = 0; i < MetricsMBean.HISTOGRAM_SUFFIXES.length; i++) {
+            String suffix = MetricsMBean.HISTOGRAM_SUFFIXES[i];
+            if (!attribute.endsWith(suffix)) {
+                continue;
+            }
+
+            metric = this.registry.getMetric(attribute.substring(0, attribute.length() - suffix.length()));
+            if (metric != null && metric.getType() == Metric.MetricType.HISTOGRAM) {
+                HistogramSnapshot snapshot = metric.getHistogram().snapshot();
+                double percentile = MetricsMBean.HISTOGRAM_PERCENTILES[i];
+                return percentile < 0.0D ? (Object) snapshot.getCount() : (Object) (snapshot.getPercentile(percentile) / MetricsMBean.NANOS_PER_SECOND);
+            }
+        }
+
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, this.getAttribute(attribute)));
+            } catch (AttributeNotFoundException ignored) {
+                // Left out of the list as specified
+            }
+        }
+
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+
+        for (Metric metric : this.registry.getMetrics()) {
+            if (metric.getType() != Metric.MetricType.HISTOGRAM) {
+                attributes.add(new MBeanAttributeInfo(metric.getName(), "long", metric.getHelp(), true, false, false));
+                continue;
+            }
+
+            for (int i = 0; i < MetricsMBean.HISTOGRAM_SUFFIXES.length; i++) {
+                String suffix = MetricsMBean.HISTOGRAM_SUFFIXES[i];
+                String type = MetricsMBean.HISTOGRAM_PERCENTILES[i] < 0.0D ? "long" : "double";
+                String description = metric.getHelp() + " (" + suffix.substring(1) + ")";
+                attributes.add(new MBeanAttributeInfo(metric.getName() + suffix, type, description, true, false, false));
+            }
+        }
+
+        return new MBeanInfo(
+            MetricsMBean.class.getName(),
+            "Pledge metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]),
+            null,
+            new MBeanOperationInfo[0],
+            null
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package dev.thomazz.pledge.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of counters, gauges and histograms describing the runtime behaviour of Pledge.
+ */
+public class MetricsRegistry {
+    private volatile Map<String, Metric> metrics = Collections.emptyMap();
+
+    /**
+     * Registers a counter that only goes up.
+     * <p>
+     * @param name - Name of the counter
+     * @param help - Description of the counter
+     * @return     - Registered counter
+     */
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter();
+        this.register(new Metric(name, help, Metric.MetricType.COUNTER, counter::get, null));
+        return counter;
+    }
+
+    /**
+     * Registers a counter that can go up and down.
+     * <p>
+     * @param name - Name of the gauge
+     * @param help - Description of the gauge
+     * @return     - Registered counter backing the gauge
+     */
+    public Counter upDownGauge(String name, String help) {
+        Counter counter = new Counter();
+        this.register(new Metric(name, help, Metric.MetricType.GAUGE, counter::get, null));
+        return counter;
+    }
+
+    /**
+     * Registers a gauge read from the supplier whenever metrics are collected.
+     * Replaces an existing gauge with the same name.
+     * <p>
+     * @param name  - Name of the gauge
+     * @param help  - Description of the gauge
+     * @param value - Supplier of the gauge value
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        this.register(new Metric(name, help, Metric.MetricType.GAUGE, value, null));
+    }
+
+    /**
+     * Registers a histogram of latencies in nanoseconds.
+     * <p>
+     * @param name - Name of the histogram
+     * @param help - Description of the histogram
+     * @return     - Registered histogram
+     */
+    public LatencyHistogram histogram(String name, String help) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        this.register(new Metric(name, help, Metric.MetricType.HISTOGRAM, null, histogram));
+        return histogram;
+    }
+
+    /**
+     * Removes a metric from the registry.
+     * <p>
+     * @param name - Name of the metric
+     */
+    public synchronized void unregister(String name) {
+        Map<String, Metric> metrics = new LinkedHashMap<>(this.metrics);
+        metrics.remove(name);
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Gets all registered metrics in registration order.
+     * <p>
+     * @return - Registered metrics
+     */
+    public Collection<Metric> getMetrics() {
+        return this.metrics.values();
+    }
+
+    public Metric getMetric(String name) {
+        return this.metrics.get(name);
+    }
+
+    private synchronized void register(Metric metric) {
+        Map<String, Metric> metrics = new LinkedHashMap<>(this.metrics);
+        metrics.put(metric.getName(), metric);
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+}
@@ -0,0 +1,27 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.Getter;
+
+/**
+ * Latency histograms recorded from ping and pong timings.
+ */
+@Getter
+public class PingLatency {
+    /**
+     * Time between writing a ping and receiving its pong.
+     */
+    private final LatencyHistogram roundTrip = new LatencyHistogram();
+
+    /**
+     * Time between receiving the start pong and the end pong of a tick or frame.
+     */
+    private final LatencyHistogram spread = new LatencyHistogram();
+
+    public void recordRoundTrip(long nanos) {
+        this.roundTrip.record(nanos);
+    }
+
+    public void recordSpread(long nanos) {
+        this.spread.record(nanos);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.experimental.UtilityClass;
+
+// Metrics recorded by Pledge internals, shared by all handlers so they do not need a reference to the API
+@UtilityClass
+public class PledgeMetrics {
+    public final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public final Counter PINGS_SENT = PledgeMetrics.REGISTRY.counter("pledge_pings_sent_total", "Pings written to players");
+    public final Counter PONGS_MATCHED = PledgeMetrics.REGISTRY.counter("pledge_pongs_matched_total", "Pongs matched to an outstanding ping");
+    public final Counter PONGS_UNMATCHED = PledgeMetrics.REGISTRY.counter("pledge_pongs_unmatched_total", "Pongs not matching any outstanding ping");
+    public final Counter PING_RESYNCS = PledgeMetrics.REGISTRY.counter("pledge_ping_resyncs_total", "Pongs that skipped over older pings that never got a pong");
+    public final Counter PINGS_TIMED_OUT = PledgeMetrics.REGISTRY.counter("pledge_pings_timed_out_total", "Pings without a pong within the timeout of their pinger");
+    public final Counter ID_COLLISIONS = PledgeMetrics.REGISTRY.counter("pledge_id_collisions_total", "Ping IDs reused while a ping with the same ID was still outstanding");
+
+    public final Counter QUEUED_MESSAGES = PledgeMetrics.REGISTRY.upDownGauge("pledge_queued_messages", "Messages held back in consolidators and message queues");
+    public final Counter QUEUED_BYTES = PledgeMetrics.REGISTRY.upDownGauge("pledge_queued_bytes", "Bytes held back in message queues");
+    public final Counter DRAINS = PledgeMetrics.REGISTRY.counter("pledge_drains_total", "Drains of consolidators and message queues");
+    public final Counter DRAINED_MESSAGES = PledgeMetrics.REGISTRY.counter("pledge_drained_messages_total", "Messages written by drains");
+    public final Counter QUEUE_OVERFLOWS = PledgeMetrics.REGISTRY.counter("pledge_queue_overflows_total", "Times the queued packets of a player exceeded the queue limits");
+
+    public final Counter LISTENER_QUEUED = PledgeMetrics.REGISTRY.upDownGauge("pledge_listener_queued", "Listener callbacks waiting in listener executors");
+    public final Counter LISTENER_OVERFLOWS = PledgeMetrics.REGISTRY.counter("pledge_listener_overflows_total", "Listener callbacks dropped because the queue of their stripe was full");
+
+    public final LatencyHistogram TICK_TASK_DELAY = PledgeMetrics.REGISTRY.histogram("pledge_tick_task_delay_seconds", "Delay between scheduling tick tasks and running them on the event loop");
+    public final LatencyHistogram TICK_START_TIME = PledgeMetrics.REGISTRY.histogram("pledge_tick_start_seconds", "Main thread time spent handling the tick start");
+    public final LatencyHistogram TICK_END_TIME = PledgeMetrics.REGISTRY.histogram("pledge_tick_end_seconds", "Main thread time spent handling the tick end");
+}
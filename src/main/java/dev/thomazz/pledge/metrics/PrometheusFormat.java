@@ -0,0 +1,47 @@
+package dev.thomazz.pledge.metrics;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+
+// Writes metrics in the Prometheus text exposition format, histograms are written as summaries in seconds
+@UtilityClass
+public class PrometheusFormat {
+    private final double[] QUANTILES = {0.5D, 0.9D, 0.99D, 0.999D};
+    private final double NANOS_PER_SECOND = 1_000_000_000.0D;
+
+    public String write(MetricsRegistry registry) {
+        StringBuilder builder = new StringBuilder();
+
+        for (Metric metric : registry.getMetrics()) {
+            String name = metric.getName();
+            builder.append("# HELP ").append(name).append(' ').append(metric.getHelp()).append('\n');
+
+            switch (metric.getType()) {
+                case COUNTER:
+                case GAUGE:
+                    builder.append("# TYPE ").append(name).append(' ').append(metric.getType().name().toLowerCase(Locale.ROOT)).append('\n');
+                    builder.append(name).append(' ').append(metric.getValue().getAsLong()).append('\n');
+                    break;
+                case HISTOGRAM:
+                    HistogramSnapshot snapshot = metric.getHistogram().snapshot();
+                    builder.append("# TYPE ").append(name).append(" summary\n");
+
+                    for (double quantile : PrometheusFormat.QUANTILES) {
+                        builder.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                            .append(PrometheusFormat.seconds(snapshot.getPercentile(quantile * 100.0D))).append('\n');
+                    }
+
+                    builder.append(name).append("_sum ").append(PrometheusFormat.seconds(snapshot.getMean() * snapshot.getCount())).append('\n');
+                    builder.append(name).append("_count ").append(snapshot.getCount()).append('\n');
+                    break;
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private String seconds(double nanos) {
+        return Double.toString(nanos / PrometheusFormat.NANOS_PER_SECOND);
+    }
+}
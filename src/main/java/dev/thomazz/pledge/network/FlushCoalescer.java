@@ -0,0 +1,49 @@
+package dev.thomazz.pledge.network;
+
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.ChannelOutboundInvoker;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Decides when flushes issued by Pledge actually reach the channel, and counts them
+public class FlushCoalescer {
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder coalescedFlushes = new LongAdder();
+
+    @Getter
+    @Setter
+    private volatile boolean enabled = false;
+
+    // Flushes right away, or defers the flush to the next tick boundary when coalescing
+    public void flush(PlayerSession session, ChannelOutboundInvoker target) {
+        if (this.enabled && session != null) {
+            session.setFlushPending(true);
+            this.coalescedFlushes.increment();
+            return;
+        }
+
+        this.flushes.increment();
+        target.flush();
+    }
+
+    // Note: Should run in channel event loop
+    public void flushPending(PlayerSession session) {
+        if (session.isFlushPending()) {
+            session.setFlushPending(false);
+            this.flushes.increment();
+            session.getChannel().flush();
+        }
+    }
+
+    // Flushes that were written to the channel
+    public long getFlushes() {
+        return this.flushes.sum();
+    }
+
+    // Flushes that were merged into a single flush at the tick boundary
+    public long getCoalescedFlushes() {
+        return this.coalescedFlushes.sum();
+    }
+}
@@ -1,29 +1,45 @@
 package dev.thomazz.pledge.network;
 
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.network.queue.BoundedQueue;
+import dev.thomazz.pledge.network.queue.MessageRing;
+import dev.thomazz.pledge.network.queue.QueueLimits;
 import dev.thomazz.pledge.packet.PacketFiltering;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
-
-import java.util.ArrayDeque;
-import java.util.Queue;
+import lombok.Setter;
 
 // Prevents asynchronously sent packets to land outside the start and end ping interval
-public class NetworkPacketConsolidator extends ChannelOutboundHandlerAdapter {
-    private final Queue<NetworkMessage> messageQueue = new ArrayDeque<>();
+public class NetworkPacketConsolidator extends ChannelOutboundHandlerAdapter implements BoundedQueue {
+    private final MessageRing messageQueue = new MessageRing();
     private boolean started = false;
     private boolean open = true;
+    private long queuedBytes;
+
+    @Setter
+    private QueueLimits limits;
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        int categories = PacketFiltering.classify(msg);
+
         // Start with login packet in game state
-        if (PacketFiltering.isLoginPacket(msg)) {
+        if (PacketFiltering.LOGIN.isIn(categories)) {
             this.started = true;
         }
 
         // Check if started, some packets are whitelisted from being queued
-        if (this.started && !this.open && !PacketFiltering.isWhitelistedFromQueue(msg)) {
-            this.messageQueue.add(NetworkMessage.of(msg, promise));
+        if (this.started && !this.open && !PacketFiltering.isQueueBypass(categories)) {
+            int size = MessageRing.size(msg);
+            this.messageQueue.addLast(msg, promise);
+            this.queuedBytes += size;
+            PledgeMetrics.QUEUED_MESSAGES.increment();
+            PledgeMetrics.QUEUED_BYTES.add(size);
+
+            if (this.limits != null && this.limits.isExceeded(this.messageQueue.size(), this.queuedBytes)) {
+                this.limits.overflow(ctx, this.messageQueue.size(), this.queuedBytes, this);
+            }
             return;
         }
 
@@ -38,12 +54,43 @@ public class NetworkPacketConsolidator extends ChannelOutboundHandlerAdapter {
         this.open = false;
     }
 
+    @Override
     public void drain(ChannelHandlerContext ctx) {
+        this.drainWrites(ctx);
+        ctx.flush();
+    }
+
+    // Writes all queued messages without flushing
+    public void drainWrites(ChannelHandlerContext ctx) {
+        int drained = 0;
         while (!this.messageQueue.isEmpty()) {
-            NetworkMessage message = this.messageQueue.poll();
-            ctx.write(message.getMessage(), message.getPromise());
+            ChannelPromise promise = this.messageQueue.peekPromise();
+            Object message = this.messageQueue.poll();
+            int size = MessageRing.size(message);
+            this.queuedBytes -= size;
+            PledgeMetrics.QUEUED_BYTES.add(-size);
+            ctx.write(message, promise);
+            drained++;
         }
 
-        ctx.flush();
+        if (drained > 0) {
+            PledgeMetrics.QUEUED_MESSAGES.add(-drained);
+            PledgeMetrics.DRAINS.increment();
+            PledgeMetrics.DRAINED_MESSAGES.add(drained);
+        }
+    }
+
+    // Anything still queued can not be written anymore, release it so the gauges and buffers do not leak
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        this.discard();
+    }
+
+    @Override
+    public void discard() {
+        PledgeMetrics.QUEUED_MESSAGES.add(-this.messageQueue.size());
+        PledgeMetrics.QUEUED_BYTES.add(-this.queuedBytes);
+        this.messageQueue.discard();
+        this.queuedBytes = 0L;
     }
 }
@@ -1,28 +1,86 @@
 package dev.thomazz.pledge.network;
 
 import dev.thomazz.pledge.PledgeImpl;
-import dev.thomazz.pledge.event.PongReceiveEvent;
+import dev.thomazz.pledge.packet.PacketFiltering;
 import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
 import lombok.RequiredArgsConstructor;
-import org.bukkit.Bukkit;
+import lombok.Setter;
 import org.bukkit.entity.Player;
 
 @RequiredArgsConstructor
-public class NetworkPongListener extends ChannelInboundHandlerAdapter {
+public class NetworkPongListener extends ChannelDuplexHandler {
+    public static final AttributeKey<NetworkPongListener> KEY = AttributeKey.valueOf("pledge_packet_listener");
+
     private final PledgeImpl clientPing;
     private final Player player;
+    private boolean play;
+    private ChannelHandlerContext encoder;
+
+    @Setter
+    private NetworkPongSniffer sniffer;
+
+    public NetworkPongListener(PledgeImpl clientPing, Player player, boolean play) {
+        this(clientPing, player);
+        this.play = play;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        ctx.channel().attr(NetworkPongListener.KEY).set(this);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        ctx.channel().attr(NetworkPongListener.KEY).compareAndSet(this, null);
+    }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        PingPacketProvider packetProvider = this.clientPing.getPacketProvider();
+        NetworkPongSniffer sniffer = this.sniffer;
+
+        // Pongs are already picked up before decoding once the sniffer knows what they look like
+        if (sniffer == null || !sniffer.isLearned()) {
+            PingPacketProvider packetProvider = this.clientPing.getPacketProvider();
+
+            if (packetProvider.isPong(msg)) {
+                int id = packetProvider.idFromPong(msg);
+                if (sniffer != null && this.play) {
+                    sniffer.learn(id);
+                }
 
-        if (packetProvider.isPong(msg)) {
-            int id = packetProvider.idFromPong(msg);
-            Bukkit.getServer().getPluginManager().callEvent(new PongReceiveEvent(this.player, id));
+                this.clientPing.receivePong(this.player, PlayerSession.get(ctx.channel()), id);
+            }
         }
 
         super.channelRead(ctx, msg);
     }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        // The login packet is the first packet sent in the play state
+        if (!this.play && PacketFiltering.isLoginPacket(msg)) {
+            this.play = true;
+        }
+
+        super.write(ctx, msg, promise);
+    }
+
+    // Encoder context when the channel is in the play state, null otherwise
+    public ChannelHandlerContext getPlayEncoder(Channel channel) {
+        if (!this.play) {
+            return null;
+        }
+
+        if (this.encoder == null || this.encoder.isRemoved()) {
+            this.encoder = channel.pipeline().context("encoder");
+        }
+
+        return this.encoder;
+    }
 }
@@ -0,0 +1,82 @@
+package dev.thomazz.pledge.network;
+
+import dev.thomazz.pledge.PledgeImpl;
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.Getter;
+import org.bukkit.entity.Player;
+
+// Recognizes pong frames before they are decoded, learning the frame layout from the first decoded pong
+public class NetworkPongSniffer extends ChannelInboundHandlerAdapter {
+    private final PledgeImpl clientPing;
+    private final PingPacketProvider packetProvider;
+    private final Player player;
+
+    @Getter
+    private boolean learned = false;
+    private int pongPacketId;
+    private int pongLength;
+
+    // Last frame seen while learning
+    private int currentPacketId;
+    private int currentLength;
+    private int currentFrameId;
+
+    public NetworkPongSniffer(PledgeImpl clientPing, Player player) {
+        this.clientPing = clientPing;
+        this.packetProvider = clientPing.getPacketProvider();
+        this.player = player;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            ByteBuf frame = (ByteBuf) msg;
+            int length = frame.readableBytes();
+
+            if (this.learned) {
+                if (length == this.pongLength && NetworkPongSniffer.packetId(frame) == this.pongPacketId) {
+                    int id = this.packetProvider.getFrameId(frame);
+                    if (id >= this.packetProvider.getLowerBound() && id <= this.packetProvider.getUpperBound()) {
+                        this.clientPing.receivePong(this.player, PlayerSession.get(ctx.channel()), id);
+                    }
+                }
+            } else {
+                this.currentPacketId = NetworkPongSniffer.packetId(frame);
+                this.currentLength = length;
+                this.currentFrameId = length > 4 ? this.packetProvider.getFrameId(frame) : 0;
+            }
+        }
+
+        super.channelRead(ctx, msg);
+    }
+
+    // Called with the ID of a decoded pong, which was decoded from the last frame seen
+    public void learn(int id) {
+        if (!this.learned && this.currentPacketId != -1 && this.currentLength > 4 && this.currentFrameId == id) {
+            this.pongPacketId = this.currentPacketId;
+            this.pongLength = this.currentLength;
+            this.learned = true;
+        }
+    }
+
+    // Reads the packet ID VarInt at the start of the frame without moving the reader index
+    private static int packetId(ByteBuf frame) {
+        int index = frame.readerIndex();
+        int end = Math.min(frame.writerIndex(), index + 5);
+        int value = 0;
+
+        for (int shift = 0; index < end; shift += 7) {
+            byte read = frame.getByte(index++);
+            value |= (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,140 @@
+package dev.thomazz.pledge.network.encode;
+
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps encoded ping frames around so pings can be written below the packet encoder
+@RequiredArgsConstructor
+public class PingFrameCache {
+    // Ranges larger than this patch the ID into a copy of the template instead
+    private static final int MAX_ENCODED_IDS = 4096;
+
+    private final PingPacketProvider provider;
+    private final List<int[]> ranges = new ArrayList<>();
+
+    @Getter
+    @Setter
+    private volatile boolean enabled = false;
+
+    private volatile byte[] template;
+    private volatile EncodedRange[] encodedRanges = new EncodedRange[0];
+
+    public boolean isLearned() {
+        return this.template != null;
+    }
+
+    public synchronized void addRange(int startId, int endId) {
+        int[] range = new int[] {Math.min(startId, endId), Math.max(startId, endId)};
+        this.ranges.add(range);
+
+        if (this.template != null) {
+            this.encodeRange(range);
+        }
+    }
+
+    // Returns null if no template has been learned yet
+    public ByteBuf frame(ByteBufAllocator allocator, int id) {
+        byte[] template = this.template;
+        if (template == null) {
+            return null;
+        }
+
+        for (EncodedRange range : this.encodedRanges) {
+            if (id >= range.min && id <= range.max) {
+                return range.buffer.retainedSlice((id - range.min) * template.length, template.length);
+            }
+        }
+
+        ByteBuf frame = allocator.ioBuffer(template.length).writeBytes(template);
+        this.provider.setFrameId(frame, id);
+        return frame;
+    }
+
+    // Writes a real ping packet through the encoder and keeps the encoded frame as template, flushing is up to the caller
+    public boolean learn(ChannelHandlerContext encoder, Object packet, int id) {
+        ChannelPipeline pipeline = encoder.pipeline();
+        PingFrameCapture capture = new PingFrameCapture();
+        ChannelOutboundHandlerAdapter writer = new ChannelOutboundHandlerAdapter();
+
+        pipeline.addBefore(encoder.name(), "pledge_ping_capture", capture);
+        pipeline.addAfter(encoder.name(), "pledge_ping_writer", writer);
+        try {
+            // Written just above the encoder like other encoded pings, so queue handlers can not hold it back
+            pipeline.context(writer).write(packet);
+        } finally {
+            pipeline.remove(writer);
+            pipeline.remove(capture);
+        }
+
+        byte[] frame = capture.getFrame();
+        if (frame == null) {
+            return true;
+        }
+
+        // Make sure the ID is where the provider expects it
+        if (this.provider.getFrameId(Unpooled.wrappedBuffer(frame)) != id) {
+            this.enabled = false;
+            return false;
+        }
+
+        synchronized (this) {
+            if (this.template == null) {
+                this.template = frame;
+                this.ranges.forEach(this::encodeRange);
+            }
+        }
+
+        return true;
+    }
+
+    public synchronized void release() {
+        for (EncodedRange range : this.encodedRanges) {
+            range.buffer.release();
+        }
+
+        this.encodedRanges = new EncodedRange[0];
+        this.template = null;
+    }
+
+    private void encodeRange(int[] range) {
+        int min = range[0];
+        int max = range[1];
+        long size = (long) max - min + 1;
+
+        if (size > PingFrameCache.MAX_ENCODED_IDS) {
+            return;
+        }
+
+        byte[] template = this.template;
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer((int) size * template.length);
+        for (int i = 0; i < size; i++) {
+            buffer.writeBytes(template);
+            this.provider.setFrameId(buffer, min + i);
+        }
+
+        EncodedRange[] old = this.encodedRanges;
+        EncodedRange[] updated = new EncodedRange[old.length + 1];
+        System.arraycopy(old, 0, updated, 0, old.length);
+        updated[old.length] = new EncodedRange(min, max, buffer);
+        this.encodedRanges = updated;
+    }
+
+    @RequiredArgsConstructor
+    private static final class EncodedRange {
+        private final int min;
+        private final int max;
+        private final ByteBuf buffer;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.thomazz.pledge.network.encode;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import lombok.Getter;
+
+// Copies the first frame leaving the packet encoder
+@Getter
+public class PingFrameCapture extends ChannelOutboundHandlerAdapter {
+    private byte[] frame;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (this.frame == null && msg instanceof ByteBuf) {
+            this.frame = ByteBufUtil.getBytes((ByteBuf) msg);
+        }
+
+        super.write(ctx, msg, promise);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.thomazz.pledge.network.queue;
+
+import io.netty.channel.ChannelHandlerContext;
+
+// Handler holding back packets that can be sent or dropped when the queue limits are exceeded
+public interface BoundedQueue {
+    void drain(ChannelHandlerContext ctx);
+
+    void discard();
+}
@@ -1,29 +1,34 @@
 package dev.thomazz.pledge.network.queue;
 
-import dev.thomazz.pledge.network.NetworkMessage;
+import dev.thomazz.pledge.metrics.PledgeMetrics;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
-
 @Setter
 @Getter
-public class MessageQueueHandler extends ChannelOutboundHandlerAdapter {
-    private final Deque<NetworkMessage> messageQueue = new ConcurrentLinkedDeque<>();
+public class MessageQueueHandler extends ChannelOutboundHandlerAdapter implements BoundedQueue {
+    // Writes and drains both happen on the channel event loop
+    private final MessageRing messageQueue = new MessageRing();
     private QueueMode mode = QueueMode.PASS;
+    private QueueLimits limits;
+
+    @Setter(AccessLevel.NONE)
+    private long queuedBytes;
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         switch (this.mode) {
             case ADD_FIRST:
-                this.messageQueue.addFirst(NetworkMessage.of(msg, promise));
+                this.messageQueue.addFirst(msg, promise);
+                this.onQueued(ctx, msg);
                 break;
             case ADD_LAST:
-                this.messageQueue.addLast(NetworkMessage.of(msg, promise));
+                this.messageQueue.addLast(msg, promise);
+                this.onQueued(ctx, msg);
                 break;
             default:
             case PASS:
@@ -38,12 +43,54 @@ public class MessageQueueHandler extends ChannelOutboundHandlerAdapter {
         super.close(ctx, promise);
     }
 
+    private void onQueued(ChannelHandlerContext ctx, Object msg) {
+        int size = MessageRing.size(msg);
+        this.queuedBytes += size;
+        PledgeMetrics.QUEUED_MESSAGES.increment();
+        PledgeMetrics.QUEUED_BYTES.add(size);
+
+        if (this.limits != null && this.limits.isExceeded(this.messageQueue.size(), this.queuedBytes)) {
+            this.limits.overflow(ctx, this.messageQueue.size(), this.queuedBytes, this);
+        }
+    }
+
+    @Override
     public void drain(ChannelHandlerContext ctx) {
+        this.drainWrites(ctx);
+        ctx.flush();
+    }
+
+    // Writes all queued messages without flushing
+    public void drainWrites(ChannelHandlerContext ctx) {
+        int drained = 0;
         while (!this.messageQueue.isEmpty()) {
-            NetworkMessage message = this.messageQueue.poll();
-            ctx.write(message.getMessage(), message.getPromise());
+            ChannelPromise promise = this.messageQueue.peekPromise();
+            Object message = this.messageQueue.poll();
+            int size = MessageRing.size(message);
+            this.queuedBytes -= size;
+            PledgeMetrics.QUEUED_BYTES.add(-size);
+            ctx.write(message, promise);
+            drained++;
         }
 
-        ctx.flush();
+        if (drained > 0) {
+            PledgeMetrics.QUEUED_MESSAGES.add(-drained);
+            PledgeMetrics.DRAINS.increment();
+            PledgeMetrics.DRAINED_MESSAGES.add(drained);
+        }
+    }
+
+    // Anything still queued can not be written anymore, release it so the gauges and buffers do not leak
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        this.discard();
+    }
+
+    @Override
+    public void discard() {
+        PledgeMetrics.QUEUED_MESSAGES.add(-this.messageQueue.size());
+        PledgeMetrics.QUEUED_BYTES.add(-this.queuedBytes);
+        this.messageQueue.discard();
+        this.queuedBytes = 0L;
     }
 }
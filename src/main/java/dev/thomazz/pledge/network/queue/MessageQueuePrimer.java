@@ -1,29 +1,42 @@
 package dev.thomazz.pledge.network.queue;
 
+import dev.thomazz.pledge.network.FlushCoalescer;
 import dev.thomazz.pledge.packet.PacketFiltering;
+import dev.thomazz.pledge.session.PlayerSession;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 @RequiredArgsConstructor
 public class MessageQueuePrimer extends ChannelOutboundHandlerAdapter {
     private final MessageQueueHandler queueHandler;
 
+    @Setter
+    private FlushCoalescer flushCoalescer;
+
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        int categories = PacketFiltering.classify(msg);
+
         // Set queue handler to add last after login
-        if (PacketFiltering.isLoginPacket(msg)) {
+        if (PacketFiltering.LOGIN.isIn(categories)) {
             this.queueHandler.setMode(QueueMode.ADD_LAST);
         }
 
         // Let whitelisted packets pass through the queue
-        if (PacketFiltering.isWhitelistedFromQueue(msg)) {
+        if (PacketFiltering.isQueueBypass(categories)) {
             QueueMode lastMode = this.queueHandler.getMode();
             this.queueHandler.setMode(QueueMode.PASS);
             try {
                 super.write(ctx, msg, promise);
-                super.flush(ctx);
+
+                if (this.flushCoalescer != null) {
+                    this.flushCoalescer.flush(PlayerSession.get(ctx.channel()), ctx);
+                } else {
+                    super.flush(ctx);
+                }
             } finally {
                 this.queueHandler.setMode(lastMode);
             }
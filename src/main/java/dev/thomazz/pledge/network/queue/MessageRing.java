@@ -0,0 +1,99 @@
+package dev.thomazz.pledge.network.queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+
+// Deque of outbound messages and their promises without allocating per message, only used from the channel event loop
+public class MessageRing {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] messages = new Object[MessageRing.INITIAL_CAPACITY];
+    private ChannelPromise[] promises = new ChannelPromise[MessageRing.INITIAL_CAPACITY];
+    private int head;
+    private int size;
+
+    public void addFirst(Object message, ChannelPromise promise) {
+        this.ensureCapacity();
+
+        this.head = (this.head - 1) & (this.messages.length - 1);
+        this.messages[this.head] = message;
+        this.promises[this.head] = promise;
+        this.size++;
+    }
+
+    public void addLast(Object message, ChannelPromise promise) {
+        this.ensureCapacity();
+
+        int index = (this.head + this.size) & (this.messages.length - 1);
+        this.messages[index] = message;
+        this.promises[index] = promise;
+        this.size++;
+    }
+
+    // Promise of the first message, poll the message after to remove both
+    public ChannelPromise peekPromise() {
+        return this.size > 0 ? this.promises[this.head] : null;
+    }
+
+    public Object poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        Object message = this.messages[this.head];
+        this.messages[this.head] = null;
+        this.promises[this.head] = null;
+        this.head = (this.head + 1) & (this.messages.length - 1);
+        this.size--;
+        return message;
+    }
+
+    // Releases all messages and fails their promises
+    public void discard() {
+        ClosedChannelException cause = null;
+        while (this.size > 0) {
+            ChannelPromise promise = this.peekPromise();
+            ReferenceCountUtil.safeRelease(this.poll());
+
+            if (cause == null) {
+                cause = new ClosedChannelException();
+            }
+
+            promise.tryFailure(cause);
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void ensureCapacity() {
+        if (this.size < this.messages.length) {
+            return;
+        }
+
+        Object[] grownMessages = new Object[this.messages.length << 1];
+        ChannelPromise[] grownPromises = new ChannelPromise[this.promises.length << 1];
+        for (int i = 0; i < this.size; i++) {
+            int index = (this.head + i) & (this.messages.length - 1);
+            grownMessages[i] = this.messages[index];
+            grownPromises[i] = this.promises[index];
+        }
+
+        this.messages = grownMessages;
+        this.promises = grownPromises;
+        this.head = 0;
+    }
+
+    // Size in bytes for encoded messages, packets that are not encoded yet count as zero
+    public static int size(Object message) {
+        return message instanceof ByteBuf ? ((ByteBuf) message).readableBytes() : 0;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.thomazz.pledge.network.queue;
+
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.function.Consumer;
+
+// Per channel caps on queued packets, shared by all queue handlers
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class QueueLimits {
+    private final Consumer<PlayerSession> untrack;
+
+    // Limits of 0 or lower are disabled
+    private volatile int maxMessages;
+    private volatile long maxBytes;
+    private volatile QueueOverflowPolicy policy = (player, messages, bytes) -> QueueOverflowAction.SPILL;
+
+    public boolean isExceeded(int messages, long bytes) {
+        int maxMessages = this.maxMessages;
+        long maxBytes = this.maxBytes;
+        return maxMessages > 0 && messages > maxMessages || maxBytes > 0L && bytes > maxBytes;
+    }
+
+    // Note: Should run in channel event loop
+    public void overflow(ChannelHandlerContext ctx, int messages, long bytes, BoundedQueue queue) {
+        PledgeMetrics.QUEUE_OVERFLOWS.increment();
+
+        PlayerSession session = PlayerSession.get(ctx.channel());
+        QueueOverflowAction action = session != null
+            ? this.policy.onOverflow(session.getPlayer(), messages, bytes)
+            : QueueOverflowAction.SPILL;
+
+        switch (action) {
+            case KICK:
+                queue.discard();
+                ctx.channel().close();
+                break;
+            case DROP_TRACKING:
+                queue.drain(ctx);
+                this.untrack.accept(session);
+                break;
+            default:
+            case SPILL:
+                queue.drain(ctx);
+                break;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dev.thomazz.pledge.network.queue;
+
+/**
+ * What happens with a player that exceeds the queue limits.
+ */
+public enum QueueOverflowAction {
+    /**
+     * Sends all queued packets right away, the current tick or frame is no longer wrapped by pings.
+     */
+    SPILL,
+    /**
+     * Sends all queued packets and stops tracking the player with all pingers until the player rejoins.
+     */
+    DROP_TRACKING,
+    /**
+     * Closes the connection of the player without sending the queued packets.
+     */
+    KICK
+}
@@ -0,0 +1,20 @@
+package dev.thomazz.pledge.network.queue;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Decides what happens when the packets queued for a player exceed the queue limits.
+ * Called from the channel event loop of the player.
+ */
+@FunctionalInterface
+public interface QueueOverflowPolicy {
+    /**
+     * Called when the queued packets of a player exceed the queue limits.
+     * <p>
+     * @param player   - Player exceeding the limits
+     * @param messages - Number of queued packets
+     * @param bytes    - Number of queued bytes, only counting packets that are already encoded
+     * @return         - Action to take
+     */
+    QueueOverflowAction onOverflow(Player player, int messages, long bytes);
+}
@@ -0,0 +1,71 @@
+package dev.thomazz.pledge.packet;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Category of packet types, each packet class is resolved once into a bit mask of all categories it belongs to.
+ * Packets in a category with queue bypass are sent instantly instead of being queued by Pledge.
+ */
+@Getter
+public final class PacketCategory {
+    private final String name;
+    private final int mask;
+    private final boolean queueBypass;
+
+    @Getter(AccessLevel.NONE)
+    private final Set<Class<?>> types = new CopyOnWriteArraySet<>();
+
+    PacketCategory(String name, int mask, boolean queueBypass) {
+        this.name = name;
+        this.mask = mask;
+        this.queueBypass = queueBypass;
+    }
+
+    /**
+     * Adds a packet type to this category, subclasses of the type are included as well.
+     * <p>
+     * @param type - Packet type to add
+     * @return     - This category
+     */
+    public PacketCategory add(Class<?> type) {
+        if (this.types.add(type)) {
+            PacketFiltering.invalidate();
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks if a packet belongs to this category.
+     * <p>
+     * @param packet - Packet to check
+     * @return       - If the packet belongs to this category
+     */
+    public boolean matches(Object packet) {
+        return this.isIn(PacketFiltering.classify(packet));
+    }
+
+    /**
+     * Checks if a category mask from {@link PacketFiltering#classify(Object)} includes this category.
+     * <p>
+     * @param categories - Category mask
+     * @return           - If this category is included
+     */
+    public boolean isIn(int categories) {
+        return (categories & this.mask) != 0;
+    }
+
+    boolean contains(Class<?> type) {
+        for (Class<?> categoryType : this.types) {
+            if (categoryType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
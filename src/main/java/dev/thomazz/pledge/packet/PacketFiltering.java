@@ -1,48 +1,101 @@
 package dev.thomazz.pledge.packet;
 
-import com.google.common.collect.ImmutableList;
 import dev.thomazz.pledge.util.MinecraftReflection;
 import lombok.experimental.UtilityClass;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @UtilityClass
 public class PacketFiltering {
-    private final List<Class<?>> queueWhiteListPackets = PacketFiltering.buildQueueWhitelistPackets();
-    private final List<Class<?>> loginPackets = PacketFiltering.buildLoginPackets();
-
-    private List<Class<?>> buildQueueWhitelistPackets() {
-        ImmutableList.Builder<Class<?>> builder = ImmutableList.builder();
-        PacketFiltering.addGamePacket(builder, "PacketPlayOutKeepAlive");
-        PacketFiltering.addGamePacket(builder, "ClientboundKeepAlivePacket");
-        PacketFiltering.addGamePacket(builder, "PacketPlayOutKickDisconnect");
-        PacketFiltering.addGamePacket(builder, "ClientboundDisconnectPacket");
-        PacketFiltering.addGamePacket(builder, "PacketPlayOutChat");
-        PacketFiltering.addGamePacket(builder, "ClientboundChatPacket");
-        return builder.build();
-    }
-
-    private List<Class<?>> buildLoginPackets() {
-        ImmutableList.Builder<Class<?>> builder = ImmutableList.builder();
-        PacketFiltering.addGamePacket(builder, "PacketPlayOutLogin");
-        PacketFiltering.addGamePacket(builder, "ClientboundLoginPacket");
-        return builder.build();
-    }
-
-    private void addGamePacket(ImmutableList.Builder<Class<?>> builder, String packetName) {
-        try {
-            builder.add(MinecraftReflection.gamePacket(packetName));
-        } catch (Exception ignored) {
+    private final List<PacketCategory> categories = new CopyOnWriteArrayList<>();
+    private volatile int queueBypassMask = 0;
+
+    // Replaced when categories change, dropping all resolved classes
+    private volatile ClassValue<Integer> classification = PacketFiltering.createClassification();
+
+    // Login packets initiate the game start protocol
+    public final PacketCategory LOGIN = PacketFiltering.registerCategory("login", false,
+        "PacketPlayOutLogin",
+        "ClientboundLoginPacket"
+    );
+
+    // Packets instantly sent to players instead of being added to the packet queue
+    public final PacketCategory QUEUE_BYPASS = PacketFiltering.registerCategory("queue_bypass", true,
+        "PacketPlayOutKeepAlive",
+        "ClientboundKeepAlivePacket",
+        "PacketPlayOutKickDisconnect",
+        "ClientboundDisconnectPacket",
+        "PacketPlayOutChat",
+        "ClientboundChatPacket"
+    );
+
+    public synchronized PacketCategory registerCategory(String name, boolean queueBypass) {
+        int index = PacketFiltering.categories.size();
+        if (index >= Integer.SIZE) {
+            throw new IllegalStateException("Can not register more than " + Integer.SIZE + " packet categories!");
+        }
+
+        PacketCategory category = new PacketCategory(name, 1 << index, queueBypass);
+        PacketFiltering.categories.add(category);
+
+        if (queueBypass) {
+            PacketFiltering.queueBypassMask |= category.getMask();
+        }
+
+        PacketFiltering.invalidate();
+        return category;
+    }
+
+    private PacketCategory registerCategory(String name, boolean queueBypass, String... packetNames) {
+        PacketCategory category = PacketFiltering.registerCategory(name, queueBypass);
+        for (String packetName : packetNames) {
+            try {
+                category.add(MinecraftReflection.gamePacket(packetName));
+            } catch (Exception ignored) {
+            }
         }
+
+        return category;
+    }
+
+    // Mask of all categories a packet belongs to
+    public int classify(Object packet) {
+        return PacketFiltering.classification.get(packet.getClass());
+    }
+
+    // If a packet with the given categories should be instantly sent to players
+    public boolean isQueueBypass(int categories) {
+        return (categories & PacketFiltering.queueBypassMask) != 0;
     }
 
     // If a packet should be added to the packet queue or instantly sent to players
     public boolean isWhitelistedFromQueue(Object packet) {
-        return PacketFiltering.queueWhiteListPackets.stream().anyMatch(type -> type.isInstance(packet));
+        return PacketFiltering.isQueueBypass(PacketFiltering.classify(packet));
     }
 
     // Login packets initiate the game start protocol
     public boolean isLoginPacket(Object packet) {
-        return PacketFiltering.loginPackets.stream().anyMatch(type -> type.isInstance(packet));
+        return PacketFiltering.LOGIN.matches(packet);
+    }
+
+    void invalidate() {
+        PacketFiltering.classification = PacketFiltering.createClassification();
+    }
+
+    private ClassValue<Integer> createClassification() {
+        return new ClassValue<Integer>() {
+            @Override
+            protected Integer computeValue(Class<?> type) {
+                int mask = 0;
+                for (PacketCategory category : PacketFiltering.categories) {
+                    if (category.contains(type)) {
+                        mask |= category.getMask();
+                    }
+                }
+
+                return mask;
+            }
+        };
     }
 }
@@ -1,6 +1,7 @@
 package dev.thomazz.pledge.packet;
 
 import com.google.common.collect.ImmutableSet;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
 import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
 import dev.thomazz.pledge.packet.providers.TransactionPacketProvider;
 import lombok.experimental.UtilityClass;
@@ -11,9 +12,12 @@ import java.util.stream.Stream;
 
 @UtilityClass
 public class PacketProviderFactory {
+    // Compiled accessors are preferred, reflection is used when they can not be linked
     private final Set<ThrowingSupplier<PingPacketProvider>> suppliers = ImmutableSet.of(
-        TransactionPacketProvider::new,
-        PingPongPacketProvider::new
+        () -> new TransactionPacketProvider(AccessorBackend.COMPILED),
+        () -> new TransactionPacketProvider(AccessorBackend.REFLECTION),
+        () -> new PingPongPacketProvider(AccessorBackend.COMPILED),
+        () -> new PingPongPacketProvider(AccessorBackend.REFLECTION)
     );
 
     public PingPacketProvider buildPingProvider() {
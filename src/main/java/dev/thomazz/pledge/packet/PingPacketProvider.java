@@ -1,5 +1,7 @@
 package dev.thomazz.pledge.packet;
 
+import io.netty.buffer.ByteBuf;
+
 public interface PingPacketProvider {
     Object buildPacket(int id) throws Exception;
 
@@ -7,6 +9,11 @@ public interface PingPacketProvider {
 
     boolean isPong(Object packet) throws Exception;
 
+    // Encoded frames end with the ID, these work relative to the writer index of the frame
+    void setFrameId(ByteBuf frame, int id);
+
+    int getFrameId(ByteBuf frame);
+
     int getLowerBound();
 
     int getUpperBound();
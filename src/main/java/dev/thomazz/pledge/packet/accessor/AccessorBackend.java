@@ -0,0 +1,144 @@
+package dev.thomazz.pledge.packet.accessor;
+
+import lombok.RequiredArgsConstructor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+// Turns packet constructors and ID fields into accessors used by the ping packet providers
+public enum AccessorBackend {
+    // Links accessors once through generated lambdas or method handles, avoiding reflection on every call
+    COMPILED {
+        @Override
+        public PacketConstructor constructor(Constructor<?> constructor, Object... arguments) throws Exception {
+            int idIndex = AccessorBackend.idIndex(constructor, arguments);
+            MethodHandle handle = AccessorBackend.LOOKUP.unreflectConstructor(constructor);
+
+            // Constructors only taking the ID can be implemented directly by a generated class
+            if (arguments.length == 1 && handle.type().parameterType(0) == int.class) {
+                try {
+                    CallSite site = LambdaMetafactory.metafactory(
+                        AccessorBackend.LOOKUP,
+                        "construct",
+                        MethodType.methodType(PacketConstructor.class),
+                        MethodType.methodType(Object.class, int.class),
+                        handle,
+                        handle.type()
+                    );
+
+                    PacketConstructor generated = (PacketConstructor) site.getTarget().invoke();
+                    generated.construct(0); // Make sure the generated class links
+                    return generated;
+                } catch (Throwable ignored) {
+                    // Generated class could not see the packet class, the method handle still can
+                }
+            }
+
+            // Bind all other arguments and leave only the ID
+            for (int i = arguments.length - 1; i >= 0; i--) {
+                if (i != idIndex) {
+                    handle = MethodHandles.insertArguments(handle, i, arguments[i]);
+                }
+            }
+
+            MethodHandle bound = MethodHandles.explicitCastArguments(handle, MethodType.methodType(Object.class, int.class));
+            return new HandleConstructor(bound);
+        }
+
+        @Override
+        public PacketIdReader idReader(Field field) throws Exception {
+            MethodHandle getter = AccessorBackend.LOOKUP.unreflectGetter(field);
+            return new HandleIdReader(getter.asType(MethodType.methodType(int.class, Object.class)));
+        }
+    },
+
+    // Plain reflection, always available
+    REFLECTION {
+        @Override
+        public PacketConstructor constructor(Constructor<?> constructor, Object... arguments) throws Exception {
+            int idIndex = AccessorBackend.idIndex(constructor, arguments);
+            boolean shortId = constructor.getParameterTypes()[idIndex] == short.class;
+
+            return id -> {
+                Object[] values = arguments.clone();
+                values[idIndex] = shortId ? (Object) (short) id : (Object) id;
+                return constructor.newInstance(values);
+            };
+        }
+
+        @Override
+        public PacketIdReader idReader(Field field) throws Exception {
+            return field.getType() == short.class ? field::getShort : field::getInt;
+        }
+    };
+
+    // Placeholder for the position of the ID in constructor arguments
+    public static final Object ID = new Object();
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    public abstract PacketConstructor constructor(Constructor<?> constructor, Object... arguments) throws Exception;
+
+    public abstract PacketIdReader idReader(Field field) throws Exception;
+
+    private static int idIndex(Constructor<?> constructor, Object[] arguments) {
+        Class<?>[] types = constructor.getParameterTypes();
+        if (types.length != arguments.length) {
+            throw new IllegalArgumentException("Argument count does not match constructor: " + constructor);
+        }
+
+        int index = -1;
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == AccessorBackend.ID) {
+                if (index != -1 || (types[i] != int.class && types[i] != short.class)) {
+                    throw new IllegalArgumentException("Invalid ID argument for constructor: " + constructor);
+                }
+
+                index = i;
+            }
+        }
+
+        if (index == -1) {
+            throw new IllegalArgumentException("No ID argument for constructor: " + constructor);
+        }
+
+        return index;
+    }
+
+    @RequiredArgsConstructor
+    private static final class HandleConstructor implements PacketConstructor {
+        private final MethodHandle handle;
+
+        @Override
+        public Object construct(int id) throws Exception {
+            try {
+                return (Object) this.handle.invokeExact(id);
+            } catch (Exception | Error ex) {
+                throw ex;
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class HandleIdReader implements PacketIdReader {
+        private final MethodHandle getter;
+
+        @Override
+        public int read(Object packet) throws Exception {
+            try {
+                return (int) this.getter.invokeExact(packet);
+            } catch (Exception | Error ex) {
+                throw ex;
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        }
+    }
+}
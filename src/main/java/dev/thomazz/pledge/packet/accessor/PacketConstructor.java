@@ -0,0 +1,6 @@
+package dev.thomazz.pledge.packet.accessor;
+
+@FunctionalInterface
+public interface PacketConstructor {
+    Object construct(int id) throws Exception;
+}
@@ -0,0 +1,6 @@
+package dev.thomazz.pledge.packet.accessor;
+
+@FunctionalInterface
+public interface PacketIdReader {
+    int read(Object packet) throws Exception;
+}
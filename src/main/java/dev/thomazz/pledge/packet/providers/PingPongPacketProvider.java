@@ -1,33 +1,40 @@
 package dev.thomazz.pledge.packet.providers;
 
 import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.accessor.PacketConstructor;
+import dev.thomazz.pledge.packet.accessor.PacketIdReader;
 import dev.thomazz.pledge.util.MinecraftReflection;
 import dev.thomazz.pledge.util.ReflectionUtil;
-
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import io.netty.buffer.ByteBuf;
 
 public class PingPongPacketProvider implements PingPacketProvider {
     private final Class<?> pongClass;
-    private final Field pongIdField;
-    private final Constructor<?> pingConstructor;
+    private final PacketIdReader pongIdReader;
+    private final PacketConstructor pingConstructor;
 
-    public PingPongPacketProvider() throws Exception {
-        this.pongClass = MinecraftReflection.gamePacket("ServerboundPongPacket");
-        this.pongIdField = ReflectionUtil.getFieldByType(this.pongClass, int.class);
+    public PingPongPacketProvider(AccessorBackend backend) throws Exception {
+        this(
+            backend,
+            MinecraftReflection.gamePacket("ClientboundPingPacket"),
+            MinecraftReflection.gamePacket("ServerboundPongPacket")
+        );
+    }
 
-        Class<?> pingClass = MinecraftReflection.gamePacket("ClientboundPingPacket");
-        this.pingConstructor = pingClass.getConstructor(int.class);
+    public PingPongPacketProvider(AccessorBackend backend, Class<?> pingClass, Class<?> pongClass) throws Exception {
+        this.pongClass = pongClass;
+        this.pongIdReader = backend.idReader(ReflectionUtil.getFieldByType(pongClass, int.class));
+        this.pingConstructor = backend.constructor(pingClass.getConstructor(int.class), AccessorBackend.ID);
     }
 
     @Override
     public Object buildPacket(int id) throws Exception {
-        return this.pingConstructor.newInstance(id);
+        return this.pingConstructor.construct(id);
     }
 
     @Override
     public int idFromPong(Object packet) throws Exception {
-        return this.pongIdField.getInt(packet);
+        return this.pongIdReader.read(packet);
     }
 
     @Override
@@ -35,6 +42,16 @@ public class PingPongPacketProvider implements PingPacketProvider {
         return this.pongClass.isInstance(packet);
     }
 
+    @Override
+    public void setFrameId(ByteBuf frame, int id) {
+        frame.setInt(frame.writerIndex() - 4, id);
+    }
+
+    @Override
+    public int getFrameId(ByteBuf frame) {
+        return frame.getInt(frame.writerIndex() - 4);
+    }
+
     @Override
     public int getLowerBound() {
         return Integer.MIN_VALUE;
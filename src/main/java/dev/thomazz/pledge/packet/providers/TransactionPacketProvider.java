@@ -1,38 +1,58 @@
 package dev.thomazz.pledge.packet.providers;
 
 import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.accessor.PacketConstructor;
+import dev.thomazz.pledge.packet.accessor.PacketIdReader;
 import dev.thomazz.pledge.util.MinecraftReflection;
 import dev.thomazz.pledge.util.ReflectionUtil;
-
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import io.netty.buffer.ByteBuf;
 
 public class TransactionPacketProvider implements PingPacketProvider {
     private final Class<?> inTransactionClass;
-    private final Field inTransactionIdField;
-    private final Constructor<?> outTransactionConstructor;
+    private final PacketIdReader inTransactionIdReader;
+    private final PacketConstructor outTransactionConstructor;
 
-    public TransactionPacketProvider() throws Exception {
-        this.inTransactionClass = MinecraftReflection.gamePacket("PacketPlayInTransaction");
-        this.inTransactionIdField = ReflectionUtil.getFieldByType(this.inTransactionClass, short.class);
+    public TransactionPacketProvider(AccessorBackend backend) throws Exception {
+        this(
+            backend,
+            MinecraftReflection.gamePacket("PacketPlayOutTransaction"),
+            MinecraftReflection.gamePacket("PacketPlayInTransaction")
+        );
+    }
 
-        Class<?> outTransactionClass = MinecraftReflection.gamePacket("PacketPlayOutTransaction");
-        this.outTransactionConstructor = outTransactionClass.getConstructor(int.class, short.class, boolean.class);
+    public TransactionPacketProvider(AccessorBackend backend, Class<?> outTransactionClass, Class<?> inTransactionClass) throws Exception {
+        this.inTransactionClass = inTransactionClass;
+        this.inTransactionIdReader = backend.idReader(ReflectionUtil.getFieldByType(inTransactionClass, short.class));
+        this.outTransactionConstructor = backend.constructor(
+            outTransactionClass.getConstructor(int.class, short.class, boolean.class),
+            0, AccessorBackend.ID, false
+        );
     }
 
     @Override
     public Object buildPacket(int id) throws Exception {
-        return this.outTransactionConstructor.newInstance(0, (short) id, false);
+        return this.outTransactionConstructor.construct(id);
     }
 
     @Override
     public int idFromPong(Object packet) throws Exception {
-        return this.inTransactionIdField.getShort(packet);
+        return this.inTransactionIdReader.read(packet);
     }
 
     @Override
     public boolean isPong(Object packet) throws Exception {
-        return this.inTransactionClass.isInstance(packet) && this.inTransactionIdField.getShort(packet) < 0;
+        return this.inTransactionClass.isInstance(packet) && this.inTransactionIdReader.read(packet) < 0;
+    }
+
+    @Override
+    public void setFrameId(ByteBuf frame, int id) {
+        frame.setShort(frame.writerIndex() - 3, id);
+    }
+
+    @Override
+    public int getFrameId(ByteBuf frame) {
+        return frame.getShort(frame.writerIndex() - 3);
     }
 
     @Override
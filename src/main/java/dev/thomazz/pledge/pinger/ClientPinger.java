@@ -1,7 +1,10 @@
 package dev.thomazz.pledge.pinger;
 
+import dev.thomazz.pledge.metrics.PingLatency;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 /**
@@ -23,6 +26,15 @@ public interface ClientPinger {
      */
     int endId();
 
+    /**
+     * Latency histograms of pongs received by this instance.
+     * Round trip times are recorded for every pong, and the time between the start and end pong of a tick or frame
+     * is recorded as spread.
+     * <p>
+     * @return - Latency histograms
+     */
+    PingLatency getLatency();
+
     /**
      * Determines if a player should be registered to this {@link ClientPinger}
      * Always registers players by default unless a different predicate is provided.
@@ -31,10 +43,29 @@ public interface ClientPinger {
      */
     void filter(Predicate<Player> condition);
 
+    /**
+     * Sets how long to wait for the response to a ping, a timeout of zero disables timeouts which is the default.
+     * Pings without a response in time are no longer tracked, and {@link ClientPingerListener#onPingTimeout} is called.
+     * Timeouts are checked at the end of every tick, so they are only as precise as the tick rate.
+     * <p>
+     * @param timeout - Time to wait for a response
+     * @param unit    - Unit of the timeout
+     */
+    void setTimeout(long timeout, @NotNull TimeUnit unit);
+
     /**
      * Attaches a client ping listener to this {@link ClientPinger}
      * <p>
      * @param listener - Listener to attach
      */
     void attach(ClientPingerListener listener);
+
+    /**
+     * Attaches a client ping listener to this {@link ClientPinger}, with callbacks running on the given executor.
+     * Callbacks otherwise run on the netty event loop of the player, where a slow listener delays network traffic.
+     * <p>
+     * @param listener - Listener to attach
+     * @param executor - Executor to run callbacks with, callbacks for the same player run in order
+     */
+    void attach(ClientPingerListener listener, @NotNull ListenerExecutor executor);
 }
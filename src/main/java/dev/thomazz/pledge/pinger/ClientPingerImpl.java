@@ -1,36 +1,62 @@
 package dev.thomazz.pledge.pinger;
 
 import dev.thomazz.pledge.PledgeImpl;
+import dev.thomazz.pledge.metrics.PingLatency;
+import dev.thomazz.pledge.metrics.PledgeMetrics;
 import dev.thomazz.pledge.network.NetworkPacketConsolidator;
+import dev.thomazz.pledge.network.queue.BoundedQueue;
 import dev.thomazz.pledge.packet.PingPacketProvider;
 import dev.thomazz.pledge.pinger.data.Ping;
 import dev.thomazz.pledge.pinger.data.PingData;
 import dev.thomazz.pledge.pinger.data.PingOrder;
+import dev.thomazz.pledge.session.PlayerSession;
 import dev.thomazz.pledge.util.ChannelUtils;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundInvoker;
 import lombok.Getter;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 @Getter
 public class ClientPingerImpl implements ClientPinger {
-    protected final Map<Player, PingData> pingDataMap = new LinkedHashMap<>();
+    private static final AtomicInteger SLOTS = new AtomicInteger();
+    private static final long TIMEOUT_RESOLUTION = TimeUnit.MILLISECONDS.toNanos(50L);
+
+    // Sessions of registered players, data for this pinger is stored in the session at our slot
+    protected final EventLoopFanout sessions;
+    protected final int slot = ClientPingerImpl.SLOTS.getAndIncrement();
+
+    private final Consumer<PlayerSession> tickStartAction = this::tickStart;
+    private final Consumer<PlayerSession> tickEndAction = this::tickEnd;
+    private final Consumer<PingData> expireAction = this::expire;
     protected final List<ClientPingerListener> pingListeners = new ArrayList<>();
 
     protected final PledgeImpl api;
+    protected final PingLatency latency = new PingLatency();
     protected final int startId;
     protected final int endId;
 
+    // Deadlines of the oldest outstanding ping of every player, advanced at the end of every tick
+    protected final TimeoutWheel<PingData> timeouts = new TimeoutWheel<>(512, ClientPingerImpl.TIMEOUT_RESOLUTION, System.nanoTime());
+    protected volatile long timeout = 0L;
+
+    // Time the wheel is advanced to, only used from the thread ending the tick
+    private long expireTime;
+
     protected Predicate<Player> playerFilter = player -> true;
 
     public ClientPingerImpl(PledgeImpl api, int startId, int endId) {
         this.api = api;
+        this.sessions = new EventLoopFanout(api.getLogger());
 
         PingPacketProvider provider = api.getPacketProvider();
         int upperBound = provider.getUpperBound();
@@ -58,53 +84,137 @@ public class ClientPingerImpl implements ClientPinger {
         return this.endId;
     }
 
+    @Override
+    public PingLatency getLatency() {
+        return this.latency;
+    }
+
     @Override
     public void filter(Predicate<Player> condition) {
         this.playerFilter = condition;
     }
 
+    @Override
+    public void setTimeout(long timeout, @NotNull TimeUnit unit) {
+        this.timeout = Math.max(unit.toNanos(timeout), 0L);
+
+        // Outstanding pings are scheduled again with their next ping
+        if (this.timeout == 0L) {
+            this.timeouts.clear();
+        }
+    }
+
     @Override
     public void attach(ClientPingerListener listener) {
         this.pingListeners.add(listener);
     }
 
+    @Override
+    public void attach(ClientPingerListener listener, @NotNull ListenerExecutor executor) {
+        this.attach(new ExecutorListener(listener, executor, this.api.getLogger()));
+    }
+
     public void registerPlayer(Player player) {
         if (this.playerFilter.test(player)) {
-            this.injectPlayer(player);
-            this.pingDataMap.put(player, new PingData(player,this));
+            this.api.getChannel(player).ifPresent(channel -> {
+                PlayerSession session = PlayerSession.attach(channel, player);
+                this.registerSession(session);
+                this.sessions.add(session);
+                this.injectPlayer(session);
+            });
         }
     }
 
     public void unregisterPlayer(Player player) {
-        this.pingDataMap.remove(player);
-        this.ejectPlayer(player);
+        this.api.getChannel(player).map(PlayerSession::get).ifPresent(session -> {
+            if (this.sessions.remove(session)) {
+                this.unregisterSession(session);
+                this.ejectPlayer(session);
+            }
+        });
     }
 
-    protected void injectPlayer(Player player) {
-        this.api.getChannel(player).ifPresent(channel ->
-            ChannelUtils.runInEventLoop(channel,
-                () -> channel.pipeline().addLast("pledge_tick_consolidator", new NetworkPacketConsolidator())
-            )
-        );
+    protected void registerSession(PlayerSession session) {
+        session.setPingData(this.slot, new PingData(session.getPlayer(), this));
     }
 
-    protected void ejectPlayer(Player player) {
-        this.api.getChannel(player).ifPresent(channel ->
-            ChannelUtils.runInEventLoop(channel,
-                () -> channel.pipeline().remove(NetworkPacketConsolidator.class)
-            )
-        );
+    protected void unregisterSession(PlayerSession session) {
+        PingData data = session.getPingData(this.slot);
+        session.setPingData(this.slot, null);
+
+        if (data != null) {
+            this.timeouts.cancel(data.getTimeout());
+        }
+    }
+
+    protected void injectPlayer(PlayerSession session) {
+        Channel channel = session.getChannel();
+        ChannelUtils.runInEventLoop(channel, () -> {
+            NetworkPacketConsolidator consolidator = new NetworkPacketConsolidator();
+            consolidator.setLimits(this.api.getQueueLimits());
+            channel.pipeline().addLast("pledge_tick_consolidator", consolidator);
+            session.setHandler(this.slot, channel.pipeline().context(consolidator));
+        });
+    }
+
+    protected void ejectPlayer(PlayerSession session) {
+        Channel channel = session.getChannel();
+        ChannelUtils.runInEventLoop(channel, () -> {
+            ChannelHandlerContext ctx = session.getHandler(this.slot);
+            session.setHandler(this.slot, null);
+
+            // Still write what was held back, removing the handler discards it
+            if (ctx != null) {
+                ((BoundedQueue) ctx.handler()).drain(ctx);
+                channel.pipeline().remove(ctx.handler());
+            }
+        });
     }
 
     // Note: Should run in channel event loop
-    protected void ping(Player player, Channel channel, Ping ping) {
+    protected void ping(PlayerSession session, PingOrder order, int id) {
+        Channel channel = session.getChannel();
         if (!channel.eventLoop().inEventLoop()) {
             throw new IllegalStateException("Tried to run ping outside event loop!");
         }
 
-        this.api.sendPingRaw(player, channel, ping.getId());
-        this.getPingData(player).ifPresent(data -> data.offer(ping));
-        this.onSend(player, ping);
+        Player player = session.getPlayer();
+        this.api.sendPingRaw(player, channel, id);
+
+        PingData data = session.getPingData(this.slot);
+        if (data != null && data.offer(order, id) && this.timeout > 0L && !data.getTimeout().isScheduled()) {
+            this.timeouts.schedule(data.getTimeout(), data.getOldestSendTime() + this.timeout);
+        }
+
+        this.onSend(player, order, id);
+    }
+
+    // Called from the wheel for players with an outstanding ping that might have passed its deadline
+    private void expire(PingData data) {
+        long now = this.expireTime;
+        this.api.getChannel(data.getPlayer()).map(PlayerSession::get).ifPresent(session ->
+            ChannelUtils.runInEventLoop(session.getChannel(), () -> this.expire(session, data, now))
+        );
+    }
+
+    // Note: Should run in channel event loop
+    private void expire(PlayerSession session, PingData data, long now) {
+        long timeout = this.timeout;
+        if (timeout <= 0L || session.getPingData(this.slot) != data) {
+            return;
+        }
+
+        while (data.size() > 0 && now - data.getOldestSendTime() >= timeout) {
+            int id = data.getOldestId();
+            PingOrder order = data.expireOldest();
+            PledgeMetrics.PINGS_TIMED_OUT.increment();
+            this.onTimeout(session, order, id);
+        }
+
+        // Wait for the next ping, which might already have been scheduled since the wheel passed this one
+        if (data.size() > 0) {
+            this.timeouts.schedule(data.getTimeout(), data.getOldestSendTime() + timeout);
+        }
     }
 
     public boolean isInRange(int id) {
@@ -112,31 +222,71 @@ public class ClientPingerImpl implements ClientPinger {
     }
 
     public Optional<PingData> getPingData(Player player) {
-        return Optional.of(this.pingDataMap.get(player));
+        return this.api.getChannel(player)
+            .map(PlayerSession::get)
+            .map(session -> session.getPingData(this.slot));
     }
 
-    protected void onSend(Player player, Ping ping) {
-        switch (ping.getOrder()) {
+    // Called for pongs in the range of this pinger, returns if the pong matched an outstanding ping
+    public boolean receivePong(PlayerSession session, int id) {
+        PingData data = session.getPingData(this.slot);
+        if (data == null) {
+            return false;
+        }
+
+        PingOrder order = data.confirmOrder(id);
+        if (order == null) {
+            return false;
+        }
+
+        if (data.getLastSkipped() > 0) {
+            this.onSkip(session.getPlayer(), data.getLastSkippedFirst(), data.getLastSkippedLast(), data.getLastSkipped());
+        }
+
+        this.recordLatency(order, data);
+        this.onReceive(session, order, id);
+        return true;
+    }
+
+    protected void onSend(Player player, PingOrder order, int id) {
+        switch (order) {
             case TICK_START:
-                this.onSendStart(player, ping.getId());
+                this.onSendStart(player, id);
                 break;
             case TICK_END:
-                this.onSendEnd(player, ping.getId());
+                this.onSendEnd(player, id);
                 break;
         }
     }
 
     public void onReceive(Player player, Ping ping) {
-        switch (ping.getOrder()) {
+        this.api.getChannel(player).map(PlayerSession::get).ifPresent(session ->
+            this.onReceive(session, ping.getOrder(), ping.getId())
+        );
+    }
+
+    protected void onReceive(PlayerSession session, PingOrder order, int id) {
+        switch (order) {
             case TICK_START:
-                this.onReceiveStart(player, ping.getId());
+                this.onReceiveStart(session, id);
                 break;
             case TICK_END:
-                this.onReceiveEnd(player, ping.getId());
+                this.onReceiveEnd(session, id);
                 break;
         }
     }
 
+    protected void onSkip(Player player, int firstId, int lastId, int count) {
+        this.pingListeners.forEach(listener -> listener.onPingsSkipped(player, firstId, lastId, count));
+    }
+
+    protected void onTimeout(PlayerSession session, PingOrder order, int id) {
+        Player player = session.getPlayer();
+        for (int i = 0; i < this.pingListeners.size(); i++) {
+            this.pingListeners.get(i).onPingTimeout(player, id);
+        }
+    }
+
     protected void onSendStart(Player player, int id) {
         this.pingListeners.forEach(listener -> listener.onPingSendStart(player, id));
     }
@@ -145,40 +295,95 @@ public class ClientPingerImpl implements ClientPinger {
         this.pingListeners.forEach(listener -> listener.onPingSendEnd(player, id));
     }
 
-    protected void onReceiveStart(Player player, int id) {
-        this.pingListeners.forEach(listener -> listener.onPongReceiveStart(player, id));
+    // Called for every pong, so listeners are looped over without capturing the arguments
+    protected void onReceiveStart(PlayerSession session, int id) {
+        Player player = session.getPlayer();
+        for (int i = 0; i < this.pingListeners.size(); i++) {
+            this.pingListeners.get(i).onPongReceiveStart(player, id);
+        }
+    }
+
+    protected void onReceiveEnd(PlayerSession session, int id) {
+        Player player = session.getPlayer();
+        for (int i = 0; i < this.pingListeners.size(); i++) {
+            this.pingListeners.get(i).onPongReceiveEnd(player, id);
+        }
+    }
+
+    // Runs in the event loop of the session, for all sessions of a loop at once
+    private void tickStart(PlayerSession session) {
+        PingData data = session.getPingData(this.slot);
+        ChannelHandlerContext ctx = session.getHandler(this.slot);
+
+        // Still in the bracket of an earlier tick when the channel was not writable at its end
+        if (data != null && ctx != null && !data.isMerging()) {
+            NetworkPacketConsolidator consolidator = (NetworkPacketConsolidator) ctx.handler();
+            consolidator.open();
+            this.ping(session, PingOrder.TICK_START, data.pullId());
+            ChannelHandlerContext last = ctx.pipeline().lastContext();
+            consolidator.drainWrites(last);
+            this.flush(session, last);
+        }
+    }
+
+    private void tickEnd(PlayerSession session) {
+        PingData data = session.getPingData(this.slot);
+        ChannelHandlerContext ctx = session.getHandler(this.slot);
+
+        if (data != null && ctx != null) {
+            // Merge ticks into one bracket instead of piling up pings for a client that is not reading
+            data.setMerging(!session.getChannel().isWritable());
+            if (data.isMerging()) {
+                return;
+            }
+
+            NetworkPacketConsolidator consolidator = (NetworkPacketConsolidator) ctx.handler();
+            this.ping(session, PingOrder.TICK_END, data.pullId());
+            consolidator.close();
+        }
+    }
+
+    private void recordLatency(PingOrder order, PingData data) {
+        PingLatency global = this.api.getLatency();
+        long roundTrip = data.getLastRoundTrip();
+
+        this.latency.recordRoundTrip(roundTrip);
+        if (global != null) {
+            global.recordRoundTrip(roundTrip);
+        }
+
+        if (order == PingOrder.TICK_END) {
+            long spread = data.getLastSpread();
+
+            this.latency.recordSpread(spread);
+            if (global != null) {
+                global.recordSpread(spread);
+            }
+        }
     }
 
-    protected void onReceiveEnd(Player player, int id) {
-        this.pingListeners.forEach(listener -> listener.onPongReceiveEnd(player, id));
+    protected void flush(PlayerSession session, ChannelOutboundInvoker target) {
+        this.api.getFlushCoalescer().flush(session, target);
     }
 
     public void tickStart() {
-        this.pingDataMap.forEach((player, data) ->
-            this.api.getChannel(player).ifPresent(channel ->
-                ChannelUtils.runInEventLoop(channel, () -> {
-                    NetworkPacketConsolidator consolidator = channel.pipeline().get(NetworkPacketConsolidator.class);
-                    if (consolidator != null) {
-                        consolidator.open();
-                        this.ping(player, channel, new Ping(PingOrder.TICK_START, data.pullId()));
-                        consolidator.drain(channel.pipeline().lastContext());
-                    }
-                })
-            )
-        );
+        this.sessions.execute(this.tickStartAction);
     }
 
     public void tickEnd() {
-        this.pingDataMap.forEach((player, data) ->
-            this.api.getChannel(player).ifPresent(channel ->
-                ChannelUtils.runInEventLoop(channel, () -> {
-                    NetworkPacketConsolidator consolidator = channel.pipeline().get(NetworkPacketConsolidator.class);
-                    if (consolidator != null) {
-                        this.ping(player, channel, new Ping(PingOrder.TICK_END, data.pullId()));
-                        consolidator.close();
-                    }
-                })
-            )
-        );
+        this.expireTimeouts();
+        this.sessions.execute(this.tickEndAction);
+    }
+
+    protected void expireTimeouts() {
+        this.expireTimeouts(System.nanoTime());
+    }
+
+    // Times out pings with a deadline up to the given time, only called from the thread ending the tick
+    public void expireTimeouts(long now) {
+        if (this.timeout > 0L) {
+            this.expireTime = now;
+            this.timeouts.advance(now, this.expireAction);
+        }
     }
 }
@@ -46,4 +46,27 @@ public interface ClientPingerListener {
      * @param id     - ID of ping
      */
     default void onPongReceiveEnd(Player player, int id) {}
+
+    /**
+     * Called when no response to a ping is received within the timeout of the {@link ClientPinger}.
+     * The ping is no longer tracked afterwards, a late response to it is ignored.
+     * The ID is not handed out again until a response to a later ping is received, so a late response is not mistaken for a newer ping
+     * unless every ID of the pinger timed out.
+     * <p>
+     * @param player - Player that the ping was sent to
+     * @param id     - ID of ping
+     */
+    default void onPingTimeout(Player player, int id) {}
+
+    /**
+     * Called when a response is received for a ping while older pings did not get a response yet.
+     * Responses arrive in the order pings are sent, so the older pings are considered lost and are no longer tracked.
+     * This is called once for all pings skipped by the response, before the response itself is handled.
+     * <p>
+     * @param player  - Player that the ping response is received from
+     * @param firstId - ID of the oldest skipped ping
+     * @param lastId  - ID of the newest skipped ping
+     * @param count   - Number of skipped pings
+     */
+    default void onPingsSkipped(Player player, int firstId, int lastId, int count) {}
 }
@@ -0,0 +1,156 @@
+package dev.thomazz.pledge.pinger;
+
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.EventLoop;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Groups sessions by event loop so a tick only needs a single task per loop
+@RequiredArgsConstructor
+public class EventLoopFanout {
+    private final Logger logger;
+    private volatile Batch[] batches = new Batch[0];
+
+    public synchronized void add(PlayerSession session) {
+        EventLoop loop = session.getChannel().eventLoop();
+        Batch[] batches = this.batches;
+
+        for (int i = 0; i < batches.length; i++) {
+            Batch batch = batches[i];
+            if (batch.loop == loop) {
+                PlayerSession[] sessions = Arrays.copyOf(batch.sessions, batch.sessions.length + 1);
+                sessions[batch.sessions.length] = session;
+                this.replace(i, new Batch(loop, sessions));
+                return;
+            }
+        }
+
+        Batch[] updated = Arrays.copyOf(batches, batches.length + 1);
+        updated[batches.length] = new Batch(loop, new PlayerSession[] {session});
+        this.batches = updated;
+    }
+
+    public synchronized boolean remove(PlayerSession session) {
+        Batch[] batches = this.batches;
+
+        for (int i = 0; i < batches.length; i++) {
+            PlayerSession[] sessions = batches[i].sessions;
+            for (int j = 0; j < sessions.length; j++) {
+                if (sessions[j] != session) {
+                    continue;
+                }
+
+                PlayerSession[] updated = new PlayerSession[sessions.length - 1];
+                System.arraycopy(sessions, 0, updated, 0, j);
+                System.arraycopy(sessions, j + 1, updated, j, sessions.length - j - 1);
+                this.replace(i, updated.length > 0 ? new Batch(batches[i].loop, updated) : null);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Runs the action for every open session, with one task for each event loop
+    public void execute(Consumer<PlayerSession> action) {
+        for (Batch batch : this.batches) {
+            if (batch.loop.inEventLoop()) {
+                batch.run(action, this.logger);
+            } else {
+                long scheduled = System.nanoTime();
+                batch.loop.execute(() -> {
+                    PledgeMetrics.TICK_TASK_DELAY.record(System.nanoTime() - scheduled);
+                    batch.run(action, this.logger);
+                });
+            }
+        }
+    }
+
+    // Same as above, but first captures a value for every session on the calling thread
+    public <T> void execute(Function<PlayerSession, T> capture, BiConsumer<PlayerSession, T> action) {
+        for (Batch batch : this.batches) {
+            Object[] values = new Object[batch.sessions.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = capture.apply(batch.sessions[i]);
+            }
+
+            if (batch.loop.inEventLoop()) {
+                batch.run(values, action, this.logger);
+            } else {
+                long scheduled = System.nanoTime();
+                batch.loop.execute(() -> {
+                    PledgeMetrics.TICK_TASK_DELAY.record(System.nanoTime() - scheduled);
+                    batch.run(values, action, this.logger);
+                });
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Batch batch : this.batches) {
+            size += batch.sessions.length;
+        }
+
+        return size;
+    }
+
+    private void replace(int index, Batch batch) {
+        Batch[] batches = this.batches;
+
+        if (batch != null) {
+            Batch[] updated = batches.clone();
+            updated[index] = batch;
+            this.batches = updated;
+        } else {
+            Batch[] updated = new Batch[batches.length - 1];
+            System.arraycopy(batches, 0, updated, 0, index);
+            System.arraycopy(batches, index + 1, updated, index, batches.length - index - 1);
+            this.batches = updated;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Batch {
+        private final EventLoop loop;
+        private final PlayerSession[] sessions;
+
+        private void run(Consumer<PlayerSession> action, Logger logger) {
+            for (PlayerSession session : this.sessions) {
+                if (!session.getChannel().isOpen()) {
+                    continue;
+                }
+
+                // Keep going for the other sessions on this loop
+                try {
+                    action.accept(session);
+                } catch (Exception ex) {
+                    logger.log(Level.SEVERE, "Tick task failed for player: " + session.getPlayer().getName(), ex);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> void run(Object[] values, BiConsumer<PlayerSession, T> action, Logger logger) {
+            for (int i = 0; i < this.sessions.length; i++) {
+                PlayerSession session = this.sessions[i];
+                if (!session.getChannel().isOpen()) {
+                    continue;
+                }
+
+                try {
+                    action.accept(session, (T) values[i]);
+                } catch (Exception ex) {
+                    logger.log(Level.SEVERE, "Tick task failed for player: " + session.getPlayer().getName(), ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.thomazz.pledge.pinger;
+
+import dev.thomazz.pledge.pinger.frame.FrameClientPingerListener;
+import dev.thomazz.pledge.pinger.frame.data.Frame;
+import org.bukkit.entity.Player;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Hands callbacks over to a listener executor, the event loop only queues the arguments
+public class ExecutorListener implements FrameClientPingerListener {
+    private final ClientPingerListener listener;
+    private final FrameClientPingerListener frameListener;
+    private final ListenerExecutor executor;
+    private final Logger logger;
+
+    public ExecutorListener(ClientPingerListener listener, ListenerExecutor executor, Logger logger) {
+        this.listener = listener;
+        this.frameListener = listener instanceof FrameClientPingerListener ? (FrameClientPingerListener) listener : null;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    @Override
+    public void onValidation(Player player, int id) {
+        this.execute(player, () -> this.listener.onValidation(player, id));
+    }
+
+    @Override
+    public void onPingSendStart(Player player, int id) {
+        this.execute(player, () -> this.listener.onPingSendStart(player, id));
+    }
+
+    @Override
+    public void onPingSendEnd(Player player, int id) {
+        this.execute(player, () -> this.listener.onPingSendEnd(player, id));
+    }
+
+    @Override
+    public void onPongReceiveStart(Player player, int id) {
+        this.execute(player, () -> this.listener.onPongReceiveStart(player, id));
+    }
+
+    @Override
+    public void onPongReceiveEnd(Player player, int id) {
+        this.execute(player, () -> this.listener.onPongReceiveEnd(player, id));
+    }
+
+    @Override
+    public void onPingTimeout(Player player, int id) {
+        this.execute(player, () -> this.listener.onPingTimeout(player, id));
+    }
+
+    @Override
+    public void onPingsSkipped(Player player, int firstId, int lastId, int count) {
+        this.execute(player, () -> this.listener.onPingsSkipped(player, firstId, lastId, count));
+    }
+
+    @Override
+    public void onFrameCreate(Player player, Frame frame) {
+        if (this.frameListener != null) {
+            this.execute(player, () -> this.frameListener.onFrameCreate(player, frame));
+        }
+    }
+
+    @Override
+    public void onFrameSend(Player player, Frame frame) {
+        if (this.frameListener != null) {
+            this.execute(player, () -> this.frameListener.onFrameSend(player, frame));
+        }
+    }
+
+    @Override
+    public void onFrameReceiveStart(Player player, Frame frame) {
+        if (this.frameListener != null) {
+            this.execute(player, () -> this.frameListener.onFrameReceiveStart(player, frame));
+        }
+    }
+
+    @Override
+    public void onFrameReceiveEnd(Player player, Frame frame) {
+        if (this.frameListener != null) {
+            this.execute(player, () -> this.frameListener.onFrameReceiveEnd(player, frame));
+        }
+    }
+
+    @Override
+    public void onFrameTimeout(Player player, Frame frame) {
+        if (this.frameListener != null) {
+            this.execute(player, () -> this.frameListener.onFrameTimeout(player, frame));
+        }
+    }
+
+    private void execute(Player player, Runnable callback) {
+        this.executor.execute(player, () -> {
+            try {
+                callback.run();
+            } catch (Throwable ex) {
+                this.logger.log(Level.SEVERE, "Listener failed for player: " + player.getName(), ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package dev.thomazz.pledge.pinger;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ranges of ping IDs in use by pingers, so new pingers can lease a range no other pinger uses
+public class IdSpace {
+    private final long lowerBound;
+    private final long upperBound;
+
+    // Start of each used range mapped to its end, both inclusive
+    private final TreeMap<Long, Long> used = new TreeMap<>();
+
+    public IdSpace(int lowerBound, int upperBound) {
+        this.lowerBound = lowerBound;
+
+        // Vanilla only uses positive IDs, leased ranges count down from -1
+        this.upperBound = Math.min(upperBound, -1);
+    }
+
+    public synchronized void reserve(int startId, int endId) {
+        long min = Math.min(startId, endId);
+        long max = Math.max(startId, endId);
+        this.used.merge(min, max, Math::max);
+    }
+
+    // Highest free range of the size, as start and end ID with the start closest to 0
+    public synchronized int[] lease(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Range size must be positive: " + size);
+        }
+
+        // Moves the candidate below every overlapping range, ranges skipped here stay above it as starts only decrease
+        long top = this.upperBound;
+        for (Map.Entry<Long, Long> entry : this.used.descendingMap().entrySet()) {
+            if (entry.getValue() >= top - size + 1) {
+                top = Math.min(top, entry.getKey() - 1);
+            }
+        }
+
+        long bottom = top - size + 1;
+        if (bottom < this.lowerBound) {
+            throw new IllegalStateException("No free range of " + size + " ping IDs left!");
+        }
+
+        this.reserve((int) top, (int) bottom);
+        return new int[] {(int) top, (int) bottom};
+    }
+}
@@ -0,0 +1,237 @@
+package dev.thomazz.pledge.pinger;
+
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs listener callbacks away from the netty event loops, see {@link ClientPinger#attach(ClientPingerListener, ListenerExecutor)}.
+ * <p>
+ * Players are spread over stripes that each run their callbacks one at a time,
+ * so callbacks for the same player always run in order while different players run in parallel.
+ * Every stripe has a bounded queue, callbacks that do not fit are dropped and counted in the metrics.
+ * <p>
+ * A tick synchronized executor instead keeps callbacks for every player until {@link #drain()} is called,
+ * which Pledge does at the start of every tick for {@link dev.thomazz.pledge.Pledge#getTickExecutor()}.
+ */
+public final class ListenerExecutor {
+    // Callbacks a stripe runs before giving other stripes a turn on the executor
+    private static final int BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final Stripe[] stripes;
+    private final int capacity;
+
+    // Only used when tick synchronized, players with callbacks are queued once until drained
+    private final Map<Player, PlayerBatch> batches = new ConcurrentHashMap<>();
+    private final Queue<PlayerBatch> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private ListenerExecutor(Executor executor, int stripes, int capacity) {
+        if (stripes <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Stripes and capacity should be positive: " + stripes + ", " + capacity);
+        }
+
+        this.executor = executor;
+        this.capacity = capacity;
+        this.stripes = new Stripe[executor != null ? stripes : 0];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(capacity);
+        }
+    }
+
+    /**
+     * Creates a listener executor backed by a fixed number of daemon threads.
+     * <p>
+     * @param threads  - Number of threads running callbacks
+     * @param capacity - Callbacks that can be queued for every stripe
+     * @return         - Listener executor
+     */
+    public static ListenerExecutor threads(int threads, int capacity) {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pledge-listener-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        return new ListenerExecutor(executor, threads * 4, capacity);
+    }
+
+    /**
+     * Creates a listener executor running callbacks on virtual threads, available from Java 21.
+     * Falls back to a thread for every available processor when virtual threads are not supported.
+     * <p>
+     * @param capacity - Callbacks that can be queued for every stripe
+     * @return         - Listener executor
+     */
+    public static ListenerExecutor virtualThreads(int capacity) {
+        try {
+            Executor executor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new ListenerExecutor(executor, 256, capacity);
+        } catch (ReflectiveOperationException ex) {
+            return ListenerExecutor.threads(Runtime.getRuntime().availableProcessors(), capacity);
+        }
+    }
+
+    /**
+     * Creates a listener executor running callbacks with the given executor.
+     * <p>
+     * @param executor - Executor to run callbacks with
+     * @param stripes  - Number of stripes players are spread over, limits how many callbacks run in parallel
+     * @param capacity - Callbacks that can be queued for every stripe
+     * @return         - Listener executor
+     */
+    public static ListenerExecutor of(@NotNull Executor executor, int stripes, int capacity) {
+        return new ListenerExecutor(executor, stripes, capacity);
+    }
+
+    /**
+     * Creates a listener executor that keeps callbacks until {@link #drain()} is called from the thread that should run them.
+     * <p>
+     * @param capacity - Callbacks that can be kept for every player
+     * @return         - Listener executor
+     */
+    public static ListenerExecutor tickSynchronized(int capacity) {
+        return new ListenerExecutor(null, 1, capacity);
+    }
+
+    /**
+     * Runs all callbacks kept by a tick synchronized executor on the calling thread, grouped by player.
+     * Callbacks for a player keep their order, callbacks added while draining may run with the next drain.
+     */
+    public void drain() {
+        // Only batches queued before draining, so every player at most once
+        for (int i = this.pendingCount.get(); i > 0; i--) {
+            PlayerBatch batch = this.pending.poll();
+            if (batch == null) {
+                break;
+            }
+
+            this.pendingCount.decrementAndGet();
+            batch.pending.set(false);
+            for (int count = batch.size.get(); count > 0; count--) {
+                // Counted but not added yet, it runs with the next drain
+                Runnable callback = batch.callbacks.poll();
+                if (callback == null) {
+                    break;
+                }
+
+                batch.size.decrementAndGet();
+                PledgeMetrics.LISTENER_QUEUED.add(-1L);
+                callback.run();
+            }
+
+            // Only players with callbacks keep a batch, callbacks racing with this are still queued with the old batch
+            if (batch.size.get() == 0) {
+                this.batches.remove(batch.player, batch);
+            }
+        }
+    }
+
+    /**
+     * Stops the executor when it was created by this class, queued callbacks are not run anymore.
+     */
+    public void shutdown() {
+        if (this.executor instanceof ExecutorService) {
+            ((ExecutorService) this.executor).shutdownNow();
+        }
+    }
+
+    // Returns false if the callback was dropped because the stripe of the player is full
+    public boolean execute(Player player, Runnable callback) {
+        if (this.executor == null) {
+            return this.defer(player, callback);
+        }
+
+        int hash = System.identityHashCode(player) * 0x9E3779B9;
+        Stripe stripe = this.stripes[Math.floorMod(hash ^ (hash >>> 16), this.stripes.length)];
+
+        if (!stripe.callbacks.offer(callback)) {
+            PledgeMetrics.LISTENER_OVERFLOWS.increment();
+            return false;
+        }
+
+        PledgeMetrics.LISTENER_QUEUED.add(1L);
+        stripe.schedule();
+        return true;
+    }
+
+    private boolean defer(Player player, Runnable callback) {
+        PlayerBatch batch = this.batches.get(player);
+        if (batch == null) {
+            batch = this.batches.computeIfAbsent(player, PlayerBatch::new);
+        }
+
+        if (batch.size.incrementAndGet() > this.capacity) {
+            batch.size.decrementAndGet();
+            PledgeMetrics.LISTENER_OVERFLOWS.increment();
+            return false;
+        }
+
+        batch.callbacks.add(callback);
+        PledgeMetrics.LISTENER_QUEUED.add(1L);
+
+        if (batch.pending.compareAndSet(false, true)) {
+            // Counted after adding, so the batches counted are always the first in the queue
+            this.pending.add(batch);
+            this.pendingCount.incrementAndGet();
+        }
+
+        return true;
+    }
+
+    private static final class PlayerBatch {
+        private final Player player;
+        private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        private PlayerBatch(Player player) {
+            this.player = player;
+        }
+    }
+
+    private final class Stripe implements Runnable {
+        private final Queue<Runnable> callbacks;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Stripe(int capacity) {
+            this.callbacks = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                ListenerExecutor.this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int ran = 0;
+            Runnable callback;
+            while (ran < ListenerExecutor.BATCH_SIZE && (callback = this.callbacks.poll()) != null) {
+                PledgeMetrics.LISTENER_QUEUED.add(-1L);
+                ran++;
+                callback.run();
+            }
+
+            // Callbacks added after the last poll would otherwise wait for the next one to schedule us
+            this.scheduled.set(false);
+            if (!this.callbacks.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+}
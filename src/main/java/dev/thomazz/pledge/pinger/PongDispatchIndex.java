@@ -0,0 +1,83 @@
+package dev.thomazz.pledge.pinger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+// Maps pong IDs to the pingers that own them, rebuilt whenever a pinger is created
+public final class PongDispatchIndex {
+    // ID spaces up to this size are looked up directly instead of with a binary search
+    private static final long DIRECT_LIMIT = 1 << 15;
+
+    public static final PongDispatchIndex EMPTY = new PongDispatchIndex(new ArrayList<>());
+
+    // Boundaries of segments in which the same pingers own every ID
+    private final long[] bounds;
+    private final ClientPingerImpl[][] owners;
+
+    private final long directBase;
+    private final ClientPingerImpl[][] direct;
+
+    private PongDispatchIndex(List<? extends ClientPingerImpl> pingers) {
+        TreeSet<Long> boundSet = new TreeSet<>();
+        for (ClientPingerImpl pinger : pingers) {
+            boundSet.add(PongDispatchIndex.min(pinger));
+            boundSet.add(PongDispatchIndex.max(pinger) + 1);
+        }
+
+        this.bounds = boundSet.stream().mapToLong(Long::longValue).toArray();
+        this.owners = new ClientPingerImpl[Math.max(this.bounds.length - 1, 0)][];
+
+        for (int i = 0; i < this.owners.length; i++) {
+            long start = this.bounds[i];
+            ClientPingerImpl[] segment = pingers.stream()
+                .filter(pinger -> PongDispatchIndex.min(pinger) <= start && PongDispatchIndex.max(pinger) >= start)
+                .toArray(ClientPingerImpl[]::new);
+
+            this.owners[i] = segment.length > 0 ? segment : null;
+        }
+
+        // Small ID spaces like the transaction range can use a table with an entry for every ID
+        if (this.owners.length > 0 && this.bounds[this.bounds.length - 1] - this.bounds[0] <= PongDispatchIndex.DIRECT_LIMIT) {
+            this.directBase = this.bounds[0];
+            this.direct = new ClientPingerImpl[(int) (this.bounds[this.bounds.length - 1] - this.directBase)][];
+
+            for (int i = 0; i < this.owners.length; i++) {
+                int from = (int) (this.bounds[i] - this.directBase);
+                int to = (int) (this.bounds[i + 1] - this.directBase);
+                Arrays.fill(this.direct, from, to, this.owners[i]);
+            }
+        } else {
+            this.directBase = 0L;
+            this.direct = null;
+        }
+    }
+
+    // Pingers owning the ID, null if the ID is not in the range of any pinger
+    public ClientPingerImpl[] lookup(int id) {
+        if (this.direct != null) {
+            long offset = id - this.directBase;
+            return offset >= 0 && offset < this.direct.length ? this.direct[(int) offset] : null;
+        }
+
+        int index = Arrays.binarySearch(this.bounds, id);
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return index >= 0 && index < this.owners.length ? this.owners[index] : null;
+    }
+
+    public static PongDispatchIndex of(List<? extends ClientPingerImpl> pingers) {
+        return pingers.isEmpty() ? PongDispatchIndex.EMPTY : new PongDispatchIndex(new ArrayList<>(pingers));
+    }
+
+    private static long min(ClientPingerImpl pinger) {
+        return Math.min(pinger.startId(), pinger.endId());
+    }
+
+    private static long max(ClientPingerImpl pinger) {
+        return Math.max(pinger.startId(), pinger.endId());
+    }
+}
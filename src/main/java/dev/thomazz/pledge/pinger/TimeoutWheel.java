@@ -0,0 +1,146 @@
+package dev.thomazz.pledge.pinger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hashed timing wheel, timeouts are kept in buckets of linked entries so scheduling and cancelling are constant time
+// Timeouts can be scheduled from any thread, the wheel should only be advanced from one thread
+public class TimeoutWheel<T> {
+    private final Timeout<T>[] buckets;
+    private final long resolution;
+    private final long origin;
+    private final List<T> expired = new ArrayList<>();
+
+    private long lastTick = -1L;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimeoutWheel(int buckets, long resolution, long origin) {
+        int capacity = 1;
+        while (capacity < buckets) {
+            capacity <<= 1;
+        }
+
+        this.buckets = new Timeout[capacity];
+        this.resolution = resolution;
+        this.origin = origin;
+    }
+
+    // Moves the timeout to the new deadline if it was already scheduled
+    public synchronized void schedule(Timeout<T> timeout, long deadline) {
+        if (timeout.scheduled) {
+            this.unlink(timeout);
+        }
+
+        // Never place a timeout in a bucket that was already passed
+        long tick = Math.max(this.tickOf(deadline), this.lastTick + 1L);
+        int index = (int) (tick & (this.buckets.length - 1));
+
+        timeout.deadline = deadline;
+        timeout.bucket = index;
+        timeout.next = this.buckets[index];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+
+        this.buckets[index] = timeout;
+        timeout.scheduled = true;
+        this.size++;
+    }
+
+    public synchronized void cancel(Timeout<T> timeout) {
+        if (timeout.scheduled) {
+            this.unlink(timeout);
+        }
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < this.buckets.length; i++) {
+            while (this.buckets[i] != null) {
+                this.unlink(this.buckets[i]);
+            }
+        }
+    }
+
+    // Passes the values of all timeouts with a deadline up to now, these are no longer scheduled afterwards
+    public void advance(long now, Consumer<T> handler) {
+        synchronized (this) {
+            // Only visit buckets that are fully passed, the current one can still get timeouts that are not due yet
+            long tick = this.tickOf(now) - 1L;
+            long from = this.lastTick + 1L;
+
+            // A full turn visits every bucket, timeouts further ahead stay in their bucket
+            long to = Math.min(tick, from + this.buckets.length - 1L);
+            for (long i = from; i <= to && this.size > 0; i++) {
+                Timeout<T> timeout = this.buckets[(int) (i & (this.buckets.length - 1))];
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    if (timeout.deadline <= now) {
+                        this.unlink(timeout);
+                        this.expired.add(timeout.value);
+                    }
+
+                    timeout = next;
+                }
+            }
+
+            this.lastTick = Math.max(this.lastTick, tick);
+        }
+
+        // Handle outside of the lock, handlers are free to schedule again
+        for (int i = 0; i < this.expired.size(); i++) {
+            handler.accept(this.expired.get(i));
+        }
+
+        this.expired.clear();
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    private long tickOf(long time) {
+        return Math.max(time - this.origin, 0L) / this.resolution;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            this.buckets[timeout.bucket] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        this.size--;
+    }
+
+    // Entry that can be in the wheel at most once, reused for every deadline of the value
+    public static final class Timeout<T> {
+        private final T value;
+
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private long deadline;
+        private int bucket;
+        private volatile boolean scheduled;
+
+        public Timeout(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return this.value;
+        }
+
+        public boolean isScheduled() {
+            return this.scheduled;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.thomazz.pledge.pinger.data;
+
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Hands out offsets into a ping ID range in order, skipping offsets of pings still waiting for their pong
+public class IdAllocator {
+    // Larger ranges can not wrap around while pings are outstanding, as only a limited number of pings is tracked
+    private static final long MAX_TRACKED = 1 << 16;
+
+    private final int size;
+    private final AtomicLongArray inFlight;
+
+    // In flight without an outstanding ping, a late pong can still arrive for these
+    private final AtomicLongArray held;
+    private int cursor;
+
+    public IdAllocator(long size) {
+        this.size = (int) Math.min(size, Integer.MAX_VALUE);
+        this.inFlight = size <= IdAllocator.MAX_TRACKED ? new AtomicLongArray((this.size + 63) >>> 6) : null;
+        this.held = this.inFlight != null ? new AtomicLongArray(this.inFlight.length()) : null;
+    }
+
+    // Takes an offset of an outstanding ping when every offset is in flight, or the next offset if all are held
+    public int next() {
+        int offset = this.cursor;
+
+        if (this.inFlight != null) {
+            int free = this.findFree(this.inFlight, offset);
+            if (free >= 0) {
+                offset = free;
+            } else {
+                // Pongs match the oldest ping with an ID first, so only a held ID can be mistaken for the new ping
+                int outstanding = this.findFree(this.held, offset);
+                if (outstanding >= 0) {
+                    offset = outstanding;
+                }
+
+                PledgeMetrics.ID_COLLISIONS.increment();
+            }
+
+            this.inFlight.getAndAccumulate(offset >>> 6, 1L << offset, (bits, bit) -> bits | bit);
+        }
+
+        this.cursor = offset + 1 < this.size ? offset + 1 : 0;
+        return offset;
+    }
+
+    public void release(int offset) {
+        if (this.inFlight != null && offset >= 0 && offset < this.size) {
+            this.inFlight.getAndAccumulate(offset >>> 6, ~(1L << offset), (bits, mask) -> bits & mask);
+            this.held.getAndAccumulate(offset >>> 6, ~(1L << offset), (bits, mask) -> bits & mask);
+        }
+    }
+
+    // Keeps an offset in flight after its ping stopped being tracked, until it is released
+    public void hold(int offset) {
+        if (this.inFlight != null && offset >= 0 && offset < this.size) {
+            this.held.getAndAccumulate(offset >>> 6, 1L << offset, (bits, bit) -> bits | bit);
+        }
+    }
+
+    public boolean isInFlight(int offset) {
+        return this.inFlight != null && offset >= 0 && offset < this.size && (this.inFlight.get(offset >>> 6) & 1L << offset) != 0L;
+    }
+
+    // Larger ranges do not know which offsets are in flight
+    public boolean isTracking() {
+        return this.inFlight != null;
+    }
+
+    // Offset the next call will start searching from
+    public int getCursor() {
+        return this.cursor;
+    }
+
+    // First offset from the cursor onwards without its bit set, wrapping around once
+    private int findFree(AtomicLongArray bits, int from) {
+        int free = this.findFree(bits, from, this.size);
+        return free >= 0 ? free : this.findFree(bits, 0, from);
+    }
+
+    private int findFree(AtomicLongArray bits, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int word = i >>> 6;
+            long free = ~bits.get(word) & -1L << i;
+            if (free != 0L) {
+                int offset = (word << 6) + Long.numberOfTrailingZeros(free);
+                return offset < to ? offset : -1;
+            }
+
+            i = (word + 1) << 6;
+        }
+
+        return -1;
+    }
+}
@@ -1,62 +1,255 @@
 package dev.thomazz.pledge.pinger.data;
 
+import dev.thomazz.pledge.metrics.PledgeMetrics;
 import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.TimeoutWheel;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Getter
 public class PingData {
-    private final Queue<Ping> expectingIds = new ConcurrentLinkedQueue<>();
+    // Bounds the pings we keep track of for clients that stop responding
+    private static final int MAX_CAPACITY = 1024;
+    private static final PingOrder[] ORDERS = PingOrder.values();
+
     private final Player player;
     private final ClientPingerImpl pinger;
+    private final int capacity;
+
+    // Ring of outstanding pings, written by the sending side and read by the receiving side
+    @Getter(AccessLevel.NONE) private final int[] ids;
+    @Getter(AccessLevel.NONE) private final byte[] orders;
+    @Getter(AccessLevel.NONE) private final long[] sendTimes;
+    @Getter(AccessLevel.NONE) private volatile long head;
+    @Getter(AccessLevel.NONE) private volatile long tail;
+
+    private volatile long dropped;
+    private volatile long resyncs;
+    private volatile long lastRoundTrip = -1L;
+    private volatile long lastSpread = -1L;
+
+    @Getter(AccessLevel.NONE) private long lastStartReceive = -1L;
+
+    // Outstanding pings skipped by the last confirmed pong, only read from the receiving side
+    private int lastSkipped;
+    private int lastSkippedFirst;
+    private int lastSkippedLast;
+
+    @Getter(AccessLevel.NONE) private final IdAllocator allocator;
+
+    // IDs still in flight without a ping in the ring, released once a pong at or after their sequence is confirmed
+    @Getter(AccessLevel.NONE) private int[] heldIds;
+    @Getter(AccessLevel.NONE) private long[] heldUntil;
+    private int held;
+
+    // Deadline of the oldest outstanding ping, only scheduled when the pinger has a timeout
+    private final TimeoutWheel.Timeout<PingData> timeout = new TimeoutWheel.Timeout<>(this);
 
     private boolean validated = false;
+
+    // Set while ticks are merged into one bracket because the channel is not writable
+    @Setter private boolean merging = false;
     private int id;
 
     public PingData(Player player, ClientPingerImpl pinger) {
         this.player = player;
         this.pinger = pinger;
         this.id = pinger.startId();
+
+        long range = Math.abs((long) pinger.endId() - pinger.startId()) + 1;
+        this.allocator = new IdAllocator(range);
+        this.capacity = PingData.capacityFor(range);
+        this.ids = new int[this.capacity];
+        this.orders = new byte[this.capacity];
+        this.sendTimes = new long[this.capacity];
     }
 
+    // IDs of pings still waiting for their pong are skipped, unless all IDs in the range are
     public int pullId() {
+        int pulledId = this.idAt(this.allocator.next());
+        this.id = this.idAt(this.allocator.getCursor());
+        return pulledId;
+    }
+
+    private int idAt(int offset) {
         int startId = this.pinger.startId();
-        int endId = this.pinger.endId();
+        return this.pinger.endId() >= startId ? startId + offset : startId - offset;
+    }
+
+    private int offsetOf(int id) {
+        return (int) Math.abs((long) id - this.pinger.startId());
+    }
 
-        boolean direction = endId - startId > 0;
-        int oldId = this.id;
-        int newId = oldId + (direction ? 1 : -1);
+    public void offer(@NotNull Ping ping) {
+        this.offer(ping.getOrder(), ping.getId());
+    }
 
-        if (direction ? newId > endId : newId < endId) {
-            newId = startId;
+    // Pings offered while the ring is full are not tracked, their pongs are ignored
+    // Their IDs stay in flight until a later ping is passed, as the pong can still arrive before that
+    public boolean offer(PingOrder order, int id) {
+        long tail = this.tail;
+        if (tail - this.head >= this.capacity) {
+            this.dropped++;
+            this.hold(id, tail);
+            return false;
         }
 
-        this.id = newId;
-        return oldId;
+        int index = (int) (tail & (this.capacity - 1));
+        this.ids[index] = id;
+        this.orders[index] = (byte) order.ordinal();
+        this.sendTimes[index] = System.nanoTime();
+        this.tail = tail + 1;
+        return true;
     }
 
-    public void offer(@NotNull Ping ping) {
-        this.expectingIds.add(ping);
+    public Optional<Ping> confirm(int id) {
+        PingOrder order = this.confirmOrder(id);
+        return order != null ? Optional.of(new Ping(order, id)) : Optional.empty();
     }
 
-    public Optional<Ping> confirm(int id) {
-        Ping ping = this.expectingIds.peek();
+    // Order of the confirmed ping, null if the ID is not outstanding
+    // Pongs arrive in the order pings were sent, so all older outstanding pings will never get a pong anymore
+    public PingOrder confirmOrder(int id) {
+        // Confirmed, skipped or never sent, no need to search the ring
+        if (this.allocator.isTracking() && !this.allocator.isInFlight(this.offsetOf(id))) {
+            return null;
+        }
+
+        long head = this.head;
+        long tail = this.tail;
+
+        long match = head;
+        while (match != tail && this.ids[(int) (match & (this.capacity - 1))] != id) {
+            match++;
+        }
+
+        if (match == tail) {
+            return null;
+        }
+
+        this.lastSkipped = (int) (match - head);
+        if (this.lastSkipped > 0) {
+            this.skip(head, match);
+        }
+
+        int index = (int) (match & (this.capacity - 1));
+        PingOrder order = PingData.ORDERS[this.orders[index]];
+        long now = System.nanoTime();
+        this.lastRoundTrip = now - this.sendTimes[index];
+        this.head = match + 1;
+        this.allocator.release(this.offsetOf(id));
+        this.releaseHeld(match);
+
+        // Time between the start and end pong of a tick or frame
+        if (order == PingOrder.TICK_START) {
+            this.lastStartReceive = now;
+        } else if (this.lastStartReceive >= 0L) {
+            this.lastSpread = now - this.lastStartReceive;
+            this.lastStartReceive = -1L;
+        }
+
+        // Make sure to notify validation with the first correct ping received
+        if (!this.validated) {
+            this.pinger.getPingListeners().forEach(listener -> listener.onValidation(this.player, id));
+            this.validated = true;
+        }
+
+        return order;
+    }
+
+    // Drops the pings in between in one go, instead of failing to match every later pong
+    private void skip(long from, long to) {
+        this.lastSkippedFirst = this.ids[(int) (from & (this.capacity - 1))];
+        this.lastSkippedLast = this.ids[(int) ((to - 1) & (this.capacity - 1))];
+
+        for (long i = from; i < to; i++) {
+            this.allocator.release(this.offsetOf(this.ids[(int) (i & (this.capacity - 1))]));
+        }
+
+        // No spread for a bracket that is missing a pong
+        this.lastStartReceive = -1L;
+        this.resyncs++;
+        PledgeMetrics.PING_RESYNCS.increment();
+    }
+
+    // Only valid while there are outstanding pings
+    public long getOldestSendTime() {
+        return this.sendTimes[(int) (this.head & (this.capacity - 1))];
+    }
+
+    public int getOldestId() {
+        return this.ids[(int) (this.head & (this.capacity - 1))];
+    }
+
+    // Stops waiting for the oldest outstanding ping, a late pong for it is no longer matched
+    // The ID stays in flight until a pong for a later ping arrives, so the late pong can not match a reused ID
+    public PingOrder expireOldest() {
+        long head = this.head;
+        if (head == this.tail) {
+            return null;
+        }
+
+        int index = (int) (head & (this.capacity - 1));
+        PingOrder order = PingData.ORDERS[this.orders[index]];
+        this.head = head + 1;
+        this.hold(this.ids[index], head + 1);
+
+        // No spread for a bracket that is missing a pong
+        this.lastStartReceive = -1L;
+        return order;
+    }
+
+    public int size() {
+        return (int) (this.tail - this.head);
+    }
+
+    // Keeps the ID in flight until the ping with the sequence or a later one is confirmed
+    private void hold(int id, long sequence) {
+        if (this.heldIds == null) {
+            this.heldIds = new int[this.capacity];
+            this.heldUntil = new long[this.capacity];
+        }
 
-        if (ping != null && ping.getId() == id) {
-            // Make sure to notify validation with the first correct ping received
-            if (!this.validated) {
-                this.pinger.getPingListeners().forEach(listener -> listener.onValidation(this.player, id));
-                this.validated = true;
+        // Bounded like the ring, the oldest ID is given up first
+        if (this.held == this.capacity) {
+            this.allocator.release(this.offsetOf(this.heldIds[0]));
+            System.arraycopy(this.heldIds, 1, this.heldIds, 0, this.held - 1);
+            System.arraycopy(this.heldUntil, 1, this.heldUntil, 0, this.held - 1);
+            this.held--;
+        }
+
+        this.heldIds[this.held] = id;
+        this.heldUntil[this.held] = sequence;
+        this.held++;
+        this.allocator.hold(this.offsetOf(id));
+    }
+
+    private void releaseHeld(long sequence) {
+        int kept = 0;
+        for (int i = 0; i < this.held; i++) {
+            if (this.heldUntil[i] <= sequence) {
+                this.allocator.release(this.offsetOf(this.heldIds[i]));
+            } else {
+                this.heldIds[kept] = this.heldIds[i];
+                this.heldUntil[kept] = this.heldUntil[i];
+                kept++;
             }
+        }
+
+        this.held = kept;
+    }
 
-            return Optional.ofNullable(this.expectingIds.poll());
+    private static int capacityFor(long range) {
+        int capacity = 2;
+        while (capacity < range && capacity < PingData.MAX_CAPACITY) {
+            capacity <<= 1;
         }
 
-        return Optional.empty();
+        return capacity;
     }
 }
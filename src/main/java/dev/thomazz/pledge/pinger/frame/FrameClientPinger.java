@@ -1,14 +1,17 @@
 package dev.thomazz.pledge.pinger.frame;
 
 import dev.thomazz.pledge.pinger.ClientPinger;
+import dev.thomazz.pledge.pinger.ListenerExecutor;
 import dev.thomazz.pledge.pinger.frame.data.Frame;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * Implementation of a {@link ClientPinger} with extra functionality to determine for each tick if pings should be sent.
  * <p>
  * If a frame is created using {@link #getOrCreate(Player)},
  * all packets for the current server tick will have a ping sent before and after them.
+ * A {@link FramePolicy} can create frames automatically at the end of every tick.
  */
 public interface FrameClientPinger extends ClientPinger {
     /**
@@ -19,6 +22,14 @@ public interface FrameClientPinger extends ClientPinger {
      */
     Frame getOrCreate(Player player);
 
+    /**
+     * Sets the policy deciding when frames are created automatically, see {@link FramePolicy} for built-in policies.
+     * By default frames are only created on demand.
+     * <p>
+     * @param policy - Frame policy
+     */
+    void setFramePolicy(@NotNull FramePolicy policy);
+
     /**
      * Attaches a listener to listen to any events for {@link Frame} objects.
      * <p>
@@ -26,6 +37,14 @@ public interface FrameClientPinger extends ClientPinger {
      */
     void attach(FrameClientPingerListener listener);
 
+    /**
+     * Attaches a listener to listen to any events for {@link Frame} objects, with callbacks running on the given executor.
+     * <p>
+     * @param listener - Listener to attach
+     * @param executor - Executor to run callbacks with, callbacks for the same player run in order
+     */
+    void attach(FrameClientPingerListener listener, @NotNull ListenerExecutor executor);
+
     /**
      * Forcefully end the current frame and move to the next Frame
      * <p>
@@ -5,25 +5,36 @@ import dev.thomazz.pledge.network.queue.MessageQueueHandler;
 import dev.thomazz.pledge.network.queue.MessageQueuePrimer;
 import dev.thomazz.pledge.network.queue.QueueMode;
 import dev.thomazz.pledge.pinger.ClientPingerImpl;
-import dev.thomazz.pledge.pinger.data.Ping;
+import dev.thomazz.pledge.pinger.ExecutorListener;
+import dev.thomazz.pledge.pinger.ListenerExecutor;
 import dev.thomazz.pledge.pinger.data.PingData;
 import dev.thomazz.pledge.pinger.data.PingOrder;
 import dev.thomazz.pledge.pinger.frame.data.Frame;
 import dev.thomazz.pledge.pinger.frame.data.FrameData;
+import dev.thomazz.pledge.session.PlayerSession;
 import dev.thomazz.pledge.util.ChannelUtils;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 public class FrameClientPingerImpl extends ClientPingerImpl implements FrameClientPinger {
-    private final Map<Player, FrameData> frameDataMap = new LinkedHashMap<>();
     private final List<FrameClientPingerListener> frameListener = new ArrayList<>();
+    private final Function<PlayerSession, Frame> frameCapture = this::captureFrame;
+    private final BiConsumer<PlayerSession, Frame> sendAction = this::sendPings;
+    private final BiConsumer<Player, Frame> receiveStartAction = this::receiveStart;
+    private final BiConsumer<Player, Frame> receiveEndAction = this::receiveEnd;
+    private final BiConsumer<Player, Frame> timeoutAction = this::timeout;
+
+    private volatile FramePolicy framePolicy = FramePolicy.onDemand();
 
     public FrameClientPingerImpl(PledgeImpl clientPing, int startId, int endId) {
         super(clientPing, startId, endId);
@@ -34,47 +45,72 @@ public class FrameClientPingerImpl extends ClientPingerImpl implements FrameClie
         super.attach(listener);
         this.frameListener.add(listener);
     }
+
+    @Override
+    public void attach(FrameClientPingerListener listener, @NotNull ListenerExecutor executor) {
+        this.attach(new ExecutorListener(listener, executor, this.api.getLogger()));
+    }
+
+    @Override
+    public void setFramePolicy(@NotNull FramePolicy policy) {
+        this.framePolicy = policy;
+    }
+
     @Override
     public void nextFrame(Player player) {
-        FrameData frameData = this.frameDataMap.get(player);
-        if(frameData != null) {
-            trySendPings(player, frameData);
-        }
+        this.api.getChannel(player).map(PlayerSession::get).ifPresent(session -> {
+            Channel channel = session.getChannel();
+            if (channel.isOpen()) {
+                Frame frame = this.continueFrame(session, false);
+                ChannelUtils.runInEventLoop(channel, () -> this.sendPings(session, frame));
+            }
+        });
     }
 
     @Override
-    public void registerPlayer(Player player) {
-        super.registerPlayer(player);
-        this.frameDataMap.put(player, new FrameData());
+    protected void registerSession(PlayerSession session) {
+        super.registerSession(session);
+
+        session.setFrameData(this.slot, new FrameData());
+        session.setFrameContext(this.slot, new FrameContext(session.getPlayer(), this.api.getTickClock().getTick()));
     }
 
     @Override
-    public void unregisterPlayer(Player player) {
-        super.unregisterPlayer(player);
-        this.frameDataMap.remove(player);
+    protected void unregisterSession(PlayerSession session) {
+        super.unregisterSession(session);
+        session.setFrameData(this.slot, null);
+        session.setFrameContext(this.slot, null);
     }
 
     @Override
-    protected void injectPlayer(Player player) {
+    protected void injectPlayer(PlayerSession session) {
         MessageQueueHandler queueHandler = new MessageQueueHandler();
+        queueHandler.setLimits(this.api.getQueueLimits());
         MessageQueuePrimer queuePrimer = new MessageQueuePrimer(queueHandler);
-        this.api.getChannel(player).ifPresent(channel ->
-            ChannelUtils.runInEventLoop(channel, () ->
-                channel.pipeline()
-                    .addAfter("prepender", "pledge_queue_handler", queueHandler)
-                    .addLast("pledge_queue_primer", queuePrimer)
-            )
-        );
+        queuePrimer.setFlushCoalescer(this.api.getFlushCoalescer());
+        Channel channel = session.getChannel();
+        ChannelUtils.runInEventLoop(channel, () -> {
+            channel.pipeline()
+                .addAfter("prepender", "pledge_queue_handler", queueHandler)
+                .addLast("pledge_queue_primer", queuePrimer);
+            session.setHandler(this.slot, channel.pipeline().context(queueHandler));
+        });
     }
 
     @Override
-    protected void ejectPlayer(Player player) {
-        this.api.getChannel(player).ifPresent(channel ->
-            ChannelUtils.runInEventLoop(channel, () -> {
-                channel.pipeline().remove(MessageQueueHandler.class);
+    protected void ejectPlayer(PlayerSession session) {
+        Channel channel = session.getChannel();
+        ChannelUtils.runInEventLoop(channel, () -> {
+            ChannelHandlerContext ctx = session.getHandler(this.slot);
+            session.setHandler(this.slot, null);
+
+            // Still write what was held back, removing the handler discards it
+            if (ctx != null) {
+                ((MessageQueueHandler) ctx.handler()).drain(ctx);
+                channel.pipeline().remove(ctx.handler());
                 channel.pipeline().remove(MessageQueuePrimer.class);
-            })
-        );
+            }
+        });
     }
 
     @Override
@@ -84,42 +120,76 @@ public class FrameClientPingerImpl extends ClientPingerImpl implements FrameClie
 
     @Override
     public void tickEnd() {
-        this.frameDataMap.forEach(this::trySendPings);
+        this.expireTimeouts();
+        this.sessions.execute(this.frameCapture, this.sendAction);
     }
 
     @Override
-    protected void onReceiveStart(Player player, int id) {
-        super.onReceiveStart(player, id);
-
-        FrameData data = this.frameDataMap.get(player);
-        if (data != null && this.frameListener != null) {
-            data.matchStart(id, (frame) -> {
-                this.frameListener.forEach(listener -> listener.onFrameReceiveStart(player, frame));
-            });
+    protected void onReceiveStart(PlayerSession session, int id) {
+        super.onReceiveStart(session, id);
+
+        FrameData data = session.getFrameData(this.slot);
+        if (data != null) {
+            data.findStart(id, session.getPlayer(), this.receiveStartAction);
         }
     }
 
     @Override
-    protected void onReceiveEnd(Player player, int id) {
-        super.onReceiveEnd(player, id);
-
-        FrameData data = this.frameDataMap.get(player);
-        if (data != null && this.frameListener != null) {
-            data.matchEnd(id, (frame -> {
-                this.frameListener.forEach(listener -> listener.onFrameReceiveEnd(player, frame));
-            }));
+    protected void onReceiveEnd(PlayerSession session, int id) {
+        super.onReceiveEnd(session, id);
+
+        FrameData data = session.getFrameData(this.slot);
+        if (data != null) {
+            data.findEnd(id, session.getPlayer(), this.receiveEndAction);
             data.popFrame(id);
         }
     }
 
+    // The end ping of a frame never expires before its start ping, so only the end needs handling
+    @Override
+    protected void onTimeout(PlayerSession session, PingOrder order, int id) {
+        super.onTimeout(session, order, id);
+
+        FrameData data = session.getFrameData(this.slot);
+        if (data != null && order == PingOrder.TICK_END) {
+            data.findEnd(id, session.getPlayer(), this.timeoutAction);
+            data.popFrame(id);
+        }
+    }
+
+    private void receiveStart(Player player, Frame frame) {
+        for (int i = 0; i < this.frameListener.size(); i++) {
+            this.frameListener.get(i).onFrameReceiveStart(player, frame);
+        }
+    }
+
+    private void receiveEnd(Player player, Frame frame) {
+        for (int i = 0; i < this.frameListener.size(); i++) {
+            this.frameListener.get(i).onFrameReceiveEnd(player, frame);
+        }
+    }
+
+    private void timeout(Player player, Frame frame) {
+        for (int i = 0; i < this.frameListener.size(); i++) {
+            this.frameListener.get(i).onFrameTimeout(player, frame);
+        }
+    }
+
     @Override
-    public synchronized Frame getOrCreate(Player player) {
-        PingData pingData = this.pingDataMap.get(player);
-        FrameData frameData = this.frameDataMap.get(player);
+    public Frame getOrCreate(Player player) {
+        PlayerSession session = this.api.getChannel(player).map(PlayerSession::get).orElse(null);
+        Objects.requireNonNull(session);
+
+        PingData pingData = session.getPingData(this.slot);
+        FrameData frameData = session.getFrameData(this.slot);
 
         Objects.requireNonNull(pingData);
         Objects.requireNonNull(frameData);
 
+        return this.getOrCreate(player, pingData, frameData);
+    }
+
+    private synchronized Frame getOrCreate(Player player, PingData pingData, FrameData frameData) {
         if (!frameData.hasFrame()) {
             frameData.setFrame(this.createFrame(player, pingData));
         }
@@ -128,36 +198,87 @@ public class FrameClientPingerImpl extends ClientPingerImpl implements FrameClie
     }
 
     public Optional<FrameData> getFrameData(Player player) {
-        return Optional.ofNullable(this.frameDataMap.get(player));
-    }
-
-    private void trySendPings(Player player, FrameData frameData) {
-        Optional<Frame> optionalFrame = frameData.continueFrame();
-
-        this.api.getChannel(player).filter(Channel::isOpen).ifPresent(channel ->
-            ChannelUtils.runInEventLoop(channel, () -> {
-                try {
-                    MessageQueueHandler handler = channel.pipeline().get(MessageQueueHandler.class);
-                    if (handler != null) {
-                        if (optionalFrame.isPresent()) {
-                            Frame frame = optionalFrame.get();
-                            this.frameListener.forEach(listener -> listener.onFrameSend(player, frame));
-
-                            // Wrap by ping packets
-                            handler.setMode(QueueMode.ADD_FIRST);
-                            this.ping(player, channel, new Ping(PingOrder.TICK_START, frame.getStartId()));
-                            handler.setMode(QueueMode.ADD_LAST);
-                            this.ping(player, channel, new Ping(PingOrder.TICK_END, frame.getEndId()));
-                        }
-
-                        handler.drain(channel.pipeline().context(handler));
-                    }
-                } catch (Exception ex) {
-                    this.api.getLogger().severe("Unable to drain message queue from player: " + player.getName());
-                    ex.printStackTrace();
-                }
-            })
-        );
+        return this.api.getChannel(player)
+            .map(PlayerSession::get)
+            .map(session -> session.getFrameData(this.slot));
+    }
+
+    // Lets the frame policy create a frame before continuing it at the end of the tick
+    private Frame captureFrame(PlayerSession session) {
+        FrameData frameData = session.getFrameData(this.slot);
+        PingData pingData = session.getPingData(this.slot);
+        FrameContext context = session.getFrameContext(this.slot);
+
+        if (context != null && frameData != null && pingData != null) {
+            // Queue sizes are owned by the event loop, reading them here is only approximate
+            ChannelHandlerContext ctx = session.getHandler(this.slot);
+            MessageQueueHandler handler = ctx != null ? (MessageQueueHandler) ctx.handler() : null;
+
+            context.update(
+                this.api.getTickClock().getTick(),
+                frameData.size(),
+                pingData.getLastRoundTrip(),
+                handler != null ? handler.getMessageQueue().size() : 0,
+                handler != null ? handler.getQueuedBytes() : 0L
+            );
+
+            if (this.framePolicy.shouldCreateFrame(context)) {
+                this.getOrCreate(session.getPlayer(), pingData, frameData);
+            }
+        }
+
+        return this.continueFrame(session, true);
+    }
+
+    // Frames continued outside the tick end are only spent from the context with the next update
+    private Frame continueFrame(PlayerSession session, boolean tickEnd) {
+        FrameData frameData = session.getFrameData(this.slot);
+        FrameContext context = session.getFrameContext(this.slot);
+        Frame frame = frameData != null ? frameData.continueFrame().orElse(null) : null;
+
+        if (frame != null && context != null) {
+            long tick = this.api.getTickClock().getTick();
+            if (tickEnd) {
+                context.spend(tick);
+            } else {
+                context.spendLater(tick);
+            }
+        }
+
+        return frame;
+    }
+
+    // Note: Should run in channel event loop
+    private void sendPings(PlayerSession session, Frame frame) {
+        ChannelHandlerContext ctx = session.getHandler(this.slot);
+        if (ctx == null) {
+            return;
+        }
+
+        // Keep queueing ticks without a frame while the channel is not writable
+        if (frame == null && !session.getChannel().isWritable()) {
+            return;
+        }
+
+        Player player = session.getPlayer();
+        try {
+            MessageQueueHandler handler = (MessageQueueHandler) ctx.handler();
+
+            if (frame != null) {
+                this.frameListener.forEach(listener -> listener.onFrameSend(player, frame));
+
+                // Wrap by ping packets
+                handler.setMode(QueueMode.ADD_FIRST);
+                this.ping(session, PingOrder.TICK_START, frame.getStartId());
+                handler.setMode(QueueMode.ADD_LAST);
+                this.ping(session, PingOrder.TICK_END, frame.getEndId());
+            }
+
+            handler.drainWrites(ctx);
+            this.flush(session, ctx);
+        } catch (Exception ex) {
+            this.api.getLogger().log(Level.SEVERE, "Unable to drain message queue from player: " + player.getName(), ex);
+        }
     }
 
     private Frame createFrame(Player player, PingData data) {
@@ -39,4 +39,12 @@ public interface FrameClientPingerListener extends ClientPingerListener {
      * @param frame  - Frame received
      */
     default void onFrameReceiveEnd(Player player, Frame frame) {}
+
+    /**
+     * Called when the end ID of a {@link Frame} is not received within the timeout of the {@link FrameClientPinger}.
+     * <p>
+     * @param player - Player frame timed out for
+     * @param frame  - Frame timed out
+     */
+    default void onFrameTimeout(Player player, Frame frame) {}
 }
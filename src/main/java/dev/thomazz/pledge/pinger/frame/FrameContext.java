@@ -0,0 +1,88 @@
+package dev.thomazz.pledge.pinger.frame;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of a player passed to a {@link FramePolicy}, updated every tick before the policy is evaluated.
+ */
+@Getter
+public class FrameContext {
+    private final Player player;
+
+    /**
+     * Number of the current tick, see {@link dev.thomazz.pledge.event.TickClock#getTick()}.
+     */
+    private long tick;
+
+    /**
+     * Ticks since the last frame was sent, or the number of ticks since the player joined.
+     */
+    private long ticksSinceFrame;
+
+    /**
+     * Frames sent without a pong for their end ping yet.
+     */
+    private int outstandingFrames;
+
+    /**
+     * Round trip time of the last received pong in nanoseconds, -1 if no pong was received yet.
+     */
+    private long roundTrip;
+
+    /**
+     * Packets held back until the next frame or tick end, and their size in bytes if already encoded.
+     */
+    private int queuedMessages;
+    private long queuedBytes;
+
+    /**
+     * Frames the player can still be sent, spent whenever a frame is sent.
+     * Free for policies to use, only changed by the pinger when spending it.
+     */
+    @Setter
+    private double budget;
+
+    @Getter(AccessLevel.NONE)
+    private long lastFrameTick;
+
+    // Frames sent with FrameClientPinger#nextFrame from other threads, spent with the next update
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private volatile long pendingFrameTick;
+
+    public FrameContext(Player player, long tick) {
+        this.player = player;
+        this.lastFrameTick = tick;
+    }
+
+    void update(long tick, int outstandingFrames, long roundTrip, int queuedMessages, long queuedBytes) {
+        int pending = this.pendingFrames.getAndSet(0);
+        if (pending > 0) {
+            this.lastFrameTick = Math.max(this.lastFrameTick, this.pendingFrameTick);
+            this.budget -= pending;
+        }
+
+        this.tick = tick;
+        this.ticksSinceFrame = tick - this.lastFrameTick;
+        this.outstandingFrames = outstandingFrames;
+        this.roundTrip = roundTrip;
+        this.queuedMessages = queuedMessages;
+        this.queuedBytes = queuedBytes;
+    }
+
+    void spend(long tick) {
+        this.lastFrameTick = tick;
+        this.budget -= 1.0D;
+    }
+
+    void spendLater(long tick) {
+        this.pendingFrameTick = tick;
+        this.pendingFrames.incrementAndGet();
+    }
+}
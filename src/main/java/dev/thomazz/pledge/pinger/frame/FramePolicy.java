@@ -0,0 +1,65 @@
+package dev.thomazz.pledge.pinger.frame;
+
+/**
+ * Decides for each player at the end of every tick if a frame should be created, see {@link FrameClientPinger}.
+ * Frames created with {@link FrameClientPinger#getOrCreate(org.bukkit.entity.Player)} are always sent regardless of the policy.
+ * Evaluated on the thread ending the tick.
+ */
+@FunctionalInterface
+public interface FramePolicy {
+    /**
+     * Checks if a frame should be created for the current tick.
+     * <p>
+     * @param context - State of the player for this pinger
+     * @return        - If a frame should be created
+     */
+    boolean shouldCreateFrame(FrameContext context);
+
+    /**
+     * Combines this policy with another, creating a frame if either of them does.
+     * <p>
+     * @param other - Other policy
+     * @return      - Combined policy
+     */
+    default FramePolicy or(FramePolicy other) {
+        return context -> this.shouldCreateFrame(context) | other.shouldCreateFrame(context);
+    }
+
+    /**
+     * Only creates frames when requested with {@link FrameClientPinger#getOrCreate(org.bukkit.entity.Player)}.
+     * This is the default policy.
+     * <p>
+     * @return - On demand policy
+     */
+    static FramePolicy onDemand() {
+        return context -> false;
+    }
+
+    /**
+     * Creates a frame when the last frame for the player was at least a number of ticks ago.
+     * <p>
+     * @param ticks - Ticks between frames, 1 creates a frame every tick
+     * @return      - Interval policy
+     */
+    static FramePolicy everyTicks(int ticks) {
+        return context -> context.getTicksSinceFrame() >= ticks;
+    }
+
+    /**
+     * Creates frames as long as the player has ping budget left, spending at most a number of frames over a number of ticks.
+     * Frames requested on demand also spend budget.
+     * No frames are created while as many frames as the budget allows are still waiting for their pongs,
+     * so players with a high round trip time or a lagging connection get fewer frames.
+     * <p>
+     * @param frames - Frames the budget allows for every interval
+     * @param ticks  - Length of the interval in ticks
+     * @return       - Budgeted policy
+     */
+    static FramePolicy budgeted(int frames, int ticks) {
+        double refill = (double) frames / ticks;
+        return context -> {
+            context.setBudget(Math.min(context.getBudget() + refill, frames));
+            return context.getBudget() >= 1.0D && context.getOutstandingFrames() < frames;
+        };
+    }
+}
@@ -1,15 +1,26 @@
 package dev.thomazz.pledge.pinger.frame.data;
 
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+// Frames are continued from the server thread and matched from the channel event loop
 public class FrameData {
-    private final Queue<Frame> expectingFrames = new ConcurrentLinkedQueue<>();
     private final AtomicReference<Frame> currentFrame = new AtomicReference<>();
 
+    // Ring of expected frames in the order they were sent, indexed by start and end ID
+    private Frame[] frames = new Frame[16];
+    private long head;
+    private long tail;
+
+    private final IdIndex startIndex = new IdIndex();
+    private final IdIndex endIndex = new IdIndex();
+
+    // Frames that reuse an ID of an older frame still expected, only happens when the ID range wraps around
+    private int duplicates;
+
     public boolean hasFrame() {
         return this.currentFrame.get() != null;
     }
@@ -26,44 +37,223 @@ public class FrameData {
         Frame frame = this.currentFrame.getAndSet(null);
 
         if (frame != null) {
-            this.expectingFrames.add(frame);
+            this.add(frame);
         }
 
         return Optional.ofNullable(frame);
     }
 
     public Optional<Frame> matchStart(int id, Consumer<Frame> handler) {
-        boolean exists = this.expectingFrames.stream().anyMatch(frame -> frame.getStartId() == id);
-        if (!exists) return Optional.empty();
-        for (Frame frame : this.expectingFrames) {
-            handler.accept(frame);
-            if (frame.getStartId() == id) {
-                return Optional.of(frame);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(this.findStart(id, handler));
     }
 
     public Optional<Frame> matchEnd(int id, Consumer<Frame> handler) {
-        boolean exists = this.expectingFrames.stream().anyMatch(frame -> frame.getEndId() == id);
-        if (!exists) return Optional.empty();
-        for (Frame frame : this.expectingFrames) {
-            handler.accept(frame);
-            if (frame.getEndId() == id) {
-                return Optional.of(frame);
-            }
+        return Optional.ofNullable(this.findEnd(id, handler));
+    }
+
+    // Passes all frames up to the matching frame to the handler, returns null if there is no matching frame
+    public Frame findStart(int id, Consumer<Frame> handler) {
+        return this.findStart(id, handler, Consumer::accept);
+    }
+
+    public Frame findEnd(int id, Consumer<Frame> handler) {
+        return this.findEnd(id, handler, Consumer::accept);
+    }
+
+    // Passes the argument along so the handler does not need to capture it
+    public synchronized <T> Frame findStart(int id, T argument, BiConsumer<T, Frame> handler) {
+        return this.visit(this.startIndex.get(id), argument, handler);
+    }
+
+    public synchronized <T> Frame findEnd(int id, T argument, BiConsumer<T, Frame> handler) {
+        return this.visit(this.endIndex.get(id), argument, handler);
+    }
+
+    // Removes all frames up to and including the frame with the end ID
+    public synchronized void popFrame(int id) {
+        long sequence = this.endIndex.get(id);
+        if (sequence < 0) {
+            return;
+        }
+
+        while (this.head <= sequence) {
+            int index = this.index(this.head);
+            Frame frame = this.frames[index];
+            this.frames[index] = null;
+
+            this.startIndex.remove(frame.getStartId(), this.head);
+            this.endIndex.remove(frame.getEndId(), this.head);
+            this.head++;
+        }
+
+        if (this.duplicates > 0) {
+            this.reindex();
+        }
+    }
+
+    public synchronized int size() {
+        return (int) (this.tail - this.head);
+    }
+
+    private synchronized void add(Frame frame) {
+        if (this.tail - this.head == this.frames.length) {
+            this.grow();
+        }
+
+        long sequence = this.tail++;
+        this.frames[this.index(sequence)] = frame;
+
+        this.index(frame, sequence);
+    }
+
+    // Keep the oldest frame for an ID, like matching in send order would
+    private void index(Frame frame, long sequence) {
+        if (!this.startIndex.putIfAbsent(frame.getStartId(), sequence)) {
+            this.duplicates++;
+        }
+
+        if (!this.endIndex.putIfAbsent(frame.getEndId(), sequence)) {
+            this.duplicates++;
+        }
+    }
+
+    // Newer frames with a duplicate ID take over the index once the older frame is gone
+    private void reindex() {
+        this.startIndex.clear();
+        this.endIndex.clear();
+        this.duplicates = 0;
+
+        for (long i = this.head; i < this.tail; i++) {
+            this.index(this.frames[this.index(i)], i);
         }
-        return Optional.empty();
     }
 
-    public void popFrame(int id) {
-        boolean exists = this.expectingFrames.stream().anyMatch(frame -> frame.getEndId() == id);
-        if (!exists) return;
-        do {
-            Frame frame = this.expectingFrames.poll();
-            if (frame.getEndId() == id) {
-                return;
+    private <T> Frame visit(long sequence, T argument, BiConsumer<T, Frame> handler) {
+        if (sequence < 0) {
+            return null;
+        }
+
+        for (long i = this.head; i <= sequence; i++) {
+            handler.accept(argument, this.frames[this.index(i)]);
+        }
+
+        return this.frames[this.index(sequence)];
+    }
+
+    private void grow() {
+        Frame[] grown = new Frame[this.frames.length << 1];
+        for (long i = this.head; i < this.tail; i++) {
+            grown[(int) (i & (grown.length - 1))] = this.frames[this.index(i)];
+        }
+
+        this.frames = grown;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & (this.frames.length - 1));
+    }
+
+    // Open addressing map of ping IDs to frame sequence numbers
+    private static final class IdIndex {
+        private int[] keys = new int[32];
+        private long[] values = FrameData.IdIndex.emptyValues(32);
+        private int size;
+
+        private long get(int key) {
+            int mask = this.keys.length - 1;
+            for (int i = FrameData.IdIndex.hash(key) & mask; this.values[i] >= 0; i = (i + 1) & mask) {
+                if (this.keys[i] == key) {
+                    return this.values[i];
+                }
             }
-        } while (true);
+
+            return -1L;
+        }
+
+        private boolean putIfAbsent(int key, long value) {
+            if ((this.size + 1) * 2 > this.keys.length) {
+                this.rehash(this.keys.length << 1);
+            }
+
+            int mask = this.keys.length - 1;
+            int i = FrameData.IdIndex.hash(key) & mask;
+            while (this.values[i] >= 0) {
+                if (this.keys[i] == key) {
+                    return false;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            this.keys[i] = key;
+            this.values[i] = value;
+            this.size++;
+            return true;
+        }
+
+        private void clear() {
+            Arrays.fill(this.values, -1L);
+            this.size = 0;
+        }
+
+        // Only removes the entry if it still points to the value
+        private void remove(int key, long value) {
+            int mask = this.keys.length - 1;
+            int i = FrameData.IdIndex.hash(key) & mask;
+            while (this.values[i] >= 0) {
+                if (this.keys[i] == key) {
+                    if (this.values[i] == value) {
+                        this.delete(i);
+                    }
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+        }
+
+        // Shifts back following entries so lookups never need tombstones
+        private void delete(int slot) {
+            int mask = this.keys.length - 1;
+            int hole = slot;
+
+            for (int i = (slot + 1) & mask; this.values[i] >= 0; i = (i + 1) & mask) {
+                int home = FrameData.IdIndex.hash(this.keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    this.keys[hole] = this.keys[i];
+                    this.values[hole] = this.values[i];
+                    hole = i;
+                }
+            }
+
+            this.values[hole] = -1L;
+            this.size--;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = this.keys;
+            long[] oldValues = this.values;
+
+            this.keys = new int[capacity];
+            this.values = FrameData.IdIndex.emptyValues(capacity);
+            this.size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    this.putIfAbsent(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static long[] emptyValues(int capacity) {
+            long[] values = new long[capacity];
+            Arrays.fill(values, -1L);
+            return values;
+        }
+
+        private static int hash(int key) {
+            int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
     }
 }
@@ -0,0 +1,125 @@
+package dev.thomazz.pledge.session;
+
+import dev.thomazz.pledge.pinger.data.PingData;
+import dev.thomazz.pledge.pinger.frame.FrameContext;
+import dev.thomazz.pledge.pinger.frame.data.FrameData;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// Per-player state, attached to the player channel so event loop code never has to look up the player
+@Getter
+public class PlayerSession {
+    public static final AttributeKey<PlayerSession> KEY = AttributeKey.valueOf("pledge_session");
+
+    private final Player player;
+    private final Channel channel;
+    private final UUID uniqueId;
+    private final int entityId;
+
+    // Indexed by pinger slot, replaced on write so reads do not need to lock
+    private volatile PingData[] pingData = new PingData[0];
+    private volatile FrameData[] frameData = new FrameData[0];
+    private volatile FrameContext[] frameContexts = new FrameContext[0];
+    private volatile ChannelHandlerContext[] handlers = new ChannelHandlerContext[0];
+
+    // Only accessed from the channel event loop
+    @Setter
+    private boolean flushPending = false;
+
+    private PlayerSession(Player player, Channel channel) {
+        this.player = player;
+        this.channel = channel;
+        this.uniqueId = player.getUniqueId();
+        this.entityId = player.getEntityId();
+    }
+
+    public PingData getPingData(int slot) {
+        PingData[] data = this.pingData;
+        return slot < data.length ? data[slot] : null;
+    }
+
+    public FrameData getFrameData(int slot) {
+        FrameData[] data = this.frameData;
+        return slot < data.length ? data[slot] : null;
+    }
+
+    // Frame policy state, only used from the thread ending the tick
+    public FrameContext getFrameContext(int slot) {
+        FrameContext[] contexts = this.frameContexts;
+        return slot < contexts.length ? contexts[slot] : null;
+    }
+
+    // Pings sent by all pingers that did not get a pong yet
+    public int getOutstandingPings() {
+        int outstanding = 0;
+        for (PingData data : this.pingData) {
+            if (data != null) {
+                outstanding += data.size();
+            }
+        }
+
+        return outstanding;
+    }
+
+    // Context of the handler a pinger injected, so ticks do not have to search the pipeline
+    public ChannelHandlerContext getHandler(int slot) {
+        ChannelHandlerContext[] handlers = this.handlers;
+        ChannelHandlerContext ctx = slot < handlers.length ? handlers[slot] : null;
+        return ctx != null && !ctx.isRemoved() ? ctx : null;
+    }
+
+    public synchronized void setHandler(int slot, ChannelHandlerContext ctx) {
+        this.handlers = PlayerSession.with(this.handlers, slot, ctx);
+    }
+
+    public synchronized void setPingData(int slot, PingData data) {
+        this.pingData = PlayerSession.with(this.pingData, slot, data);
+    }
+
+    public synchronized void setFrameData(int slot, FrameData data) {
+        this.frameData = PlayerSession.with(this.frameData, slot, data);
+    }
+
+    public synchronized void setFrameContext(int slot, FrameContext context) {
+        this.frameContexts = PlayerSession.with(this.frameContexts, slot, context);
+    }
+
+    private static <T> T[] with(T[] array, int slot, T value) {
+        T[] copy = Arrays.copyOf(array, Math.max(array.length, slot + 1));
+        copy[slot] = value;
+        return copy;
+    }
+
+    // Session attached to the channel, null if there is none
+    public static PlayerSession get(Channel channel) {
+        return channel.attr(PlayerSession.KEY).get();
+    }
+
+    // Attaches a new session to the channel or returns the one already attached for the same player
+    public static PlayerSession attach(Channel channel, Player player) {
+        PlayerSession session = new PlayerSession(player, channel);
+        PlayerSession existing = channel.attr(PlayerSession.KEY).setIfAbsent(session);
+
+        if (existing == null) {
+            return session;
+        }
+
+        if (existing.player != player) {
+            channel.attr(PlayerSession.KEY).set(session);
+            return session;
+        }
+
+        return existing;
+    }
+
+    public void detach() {
+        this.channel.attr(PlayerSession.KEY).compareAndSet(this, null);
+    }
+}
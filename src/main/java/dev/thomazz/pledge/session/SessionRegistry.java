@@ -0,0 +1,51 @@
+package dev.thomazz.pledge.session;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Concurrent index of player sessions by player ID and entity ID
+public class SessionRegistry {
+    private final Map<UUID, PlayerSession> byUniqueId = new ConcurrentHashMap<>();
+    private final Map<Integer, PlayerSession> byEntityId = new ConcurrentHashMap<>();
+
+    public void register(PlayerSession session) {
+        PlayerSession old = this.byUniqueId.put(session.getUniqueId(), session);
+        if (old != null && old != session) {
+            this.byEntityId.remove(old.getEntityId(), old);
+        }
+
+        this.byEntityId.put(session.getEntityId(), session);
+    }
+
+    // Only removes the session if it was not replaced by a newer one in the meantime
+    public boolean unregister(PlayerSession session) {
+        this.byEntityId.remove(session.getEntityId(), session);
+        return this.byUniqueId.remove(session.getUniqueId(), session);
+    }
+
+    public PlayerSession get(Player player) {
+        return this.byUniqueId.get(player.getUniqueId());
+    }
+
+    public PlayerSession get(UUID uniqueId) {
+        return this.byUniqueId.get(uniqueId);
+    }
+
+    public PlayerSession getByEntityId(int entityId) {
+        return this.byEntityId.get(entityId);
+    }
+
+    public Collection<PlayerSession> getSessions() {
+        return Collections.unmodifiableCollection(this.byUniqueId.values());
+    }
+
+    public void clear() {
+        this.byUniqueId.clear();
+        this.byEntityId.clear();
+    }
+}
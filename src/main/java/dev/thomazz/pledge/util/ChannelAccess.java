@@ -4,8 +4,11 @@ import io.netty.channel.Channel;
 import lombok.experimental.UtilityClass;
 import org.bukkit.entity.Player;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
@@ -29,66 +32,114 @@ public final class ChannelAccess {
         "PlayerConnection"
     );
 
+    private final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // Accessors for the player -> connection -> network manager -> channel chain, resolved once
+    private final MethodHandle CHANNEL_GETTER = ChannelAccess.findGetter(ChannelAccess.NETWORK_MANAGER_CLASS, Channel.class);
+    private final MethodHandle NETWORK_MANAGER_GETTER = ChannelAccess.findGetter(ChannelAccess.PLAYER_CONNECTION_CLASS, ChannelAccess.NETWORK_MANAGER_CLASS);
+
+    private final ClassValue<MethodHandle> HANDLE_GETTERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return ChannelAccess.LOOKUP.unreflect(type.getDeclaredMethod("getHandle")).asType(ChannelAccess.GETTER_TYPE);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Could not access player handle of " + type.getName(), ex);
+            }
+        }
+    };
+
+    private final ClassValue<MethodHandle> CONNECTION_GETTERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            MethodHandle getter = ChannelAccess.findGetter(type, ChannelAccess.PLAYER_CONNECTION_CLASS);
+            if (getter == null) {
+                throw new IllegalStateException("Could not access player connection of " + type.getName());
+            }
+
+            return getter;
+        }
+    };
+
+    // Accessors used to match network managers to players when the player connection is not set up yet
+    private final ClassValue<MethodHandle[]> LISTENER_GETTERS = new ClassValue<MethodHandle[]>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            List<MethodHandle> getters = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (ChannelAccess.PACKET_LISTENER_CLASS.isAssignableFrom(field.getType())) {
+                    field.setAccessible(true);
+                    getters.add(ChannelAccess.unreflectGetter(field));
+                }
+            }
+
+            return getters.toArray(new MethodHandle[0]);
+        }
+    };
+
+    private final ClassValue<ListenerAccess> LISTENER_ACCESS = new ClassValue<ListenerAccess>() {
+        @Override
+        protected ListenerAccess computeValue(Class<?> type) {
+            return ListenerAccess.create(type);
+        }
+    };
+
+    // Network managers matched to players when the player connection is not set up yet
+    private final NetworkManagerIndex NETWORK_MANAGER_INDEX = new NetworkManagerIndex(ChannelAccess::key, ChannelAccess::channel);
+    private volatile List<Object> networkManagers;
+
     public Channel getChannel(Player player) {
         try {
-            UUID playerId = player.getUniqueId();
-            Object handle = player.getClass().getDeclaredMethod("getHandle").invoke(player);
-
-            Field playerConnectionField = ReflectionUtil.getFieldByType(handle.getClass(), ChannelAccess.PLAYER_CONNECTION_CLASS);
-            Field channelField = ReflectionUtil.getFieldByType(ChannelAccess.NETWORK_MANAGER_CLASS, Channel.class);
+            Object handle = (Object) ChannelAccess.HANDLE_GETTERS.get(player.getClass()).invokeExact((Object) player);
 
             // Try the easy way first
-            Object playerConnection = playerConnectionField.get(handle);
-            if (playerConnection != null) {
-                try {
-                    Field networkManagerField = ReflectionUtil.getFieldByType(PLAYER_CONNECTION_CLASS, NETWORK_MANAGER_CLASS);
-                    Object networkManager = networkManagerField.get(playerConnection);
-                    return (Channel) channelField.get(networkManager);
-                } catch (NoSuchFieldException ignored) { }
+            Object playerConnection = (Object) ChannelAccess.CONNECTION_GETTERS.get(handle.getClass()).invokeExact(handle);
+            if (playerConnection != null && ChannelAccess.NETWORK_MANAGER_GETTER != null) {
+                Object networkManager = (Object) ChannelAccess.NETWORK_MANAGER_GETTER.invokeExact(playerConnection);
+                return ChannelAccess.channel(networkManager);
             }
 
-            // Try to match all network managers after from game profile
-            List<Object> networkManagers = ChannelAccess.getNetworkManagers();
-
-            for (Object networkManager : networkManagers) {
-                Object packetListener = ReflectionUtil.getNonNullFieldByType(networkManager, PACKET_LISTENER_CLASS);
-                if (packetListener != null) {
-                    if (packetListener.getClass().getSimpleName().equals("LoginListener") || packetListener.getClass().getSimpleName().equals("ServerLoginPacketListenerImpl")) {
-                        Field profileField = ReflectionUtil.getFieldByClassNames(packetListener.getClass(), "GameProfile");
-                        Object gameProfile = profileField.get(packetListener);
-
-                        // We can use the game profile to look up the player id in the listener
-                        Field uuidField = ReflectionUtil.getFieldByType(gameProfile.getClass(), UUID.class);
-                        UUID foundId = (UUID) uuidField.get(gameProfile);
-                        if (playerId.equals(foundId)) {
-                            return (Channel) channelField.get(networkManager);
-                        }
-                    } else {
-                        // For player connection listeners we can get the player handle
-                        Field playerField;
-                        try {
-                            playerField = ReflectionUtil.getFieldByClassNames(packetListener.getClass(), "ServerPlayer", "EntityPlayer");
-                        } catch (NoSuchFieldException ignored) {
-                            // Might be ServerConfigurationPacketListenerImpl or something else that is unsupported
-                            continue;
-                        }
-
-                        Object entityPlayer = playerField.get(packetListener);
-                        if (handle.equals(entityPlayer)) {
-                            return (Channel) channelField.get(networkManager);
-                        }
-                    }
-                }
+            // Look up network managers from the index, a miss means a new connection we have not seen yet
+            UUID playerId = player.getUniqueId();
+            Object networkManager = ChannelAccess.NETWORK_MANAGER_INDEX.find(playerId, handle);
+            if (networkManager == null) {
+                ChannelAccess.NETWORK_MANAGER_INDEX.indexNew(ChannelAccess.getNetworkManagers());
+                networkManager = ChannelAccess.NETWORK_MANAGER_INDEX.find(playerId, handle);
             }
 
-            throw new NoSuchElementException("Did not find player channel!");
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not get channel for player: " + player.getName(), ex);
+            if (networkManager == null) {
+                throw new NoSuchElementException("Did not find player channel!");
+            }
+
+            return ChannelAccess.channel(networkManager);
+        } catch (Throwable throwable) {
+            throw new RuntimeException("Could not get channel for player: " + player.getName(), throwable);
+        }
+    }
+
+    private Channel channel(Object networkManager) throws Throwable {
+        return (Channel) (Object) ChannelAccess.CHANNEL_GETTER.invokeExact(networkManager);
+    }
+
+    private Object key(Object networkManager) throws Throwable {
+        for (MethodHandle getter : ChannelAccess.LISTENER_GETTERS.get(networkManager.getClass())) {
+            Object packetListener = (Object) getter.invokeExact(networkManager);
+            if (packetListener != null) {
+                return ChannelAccess.LISTENER_ACCESS.get(packetListener.getClass()).key(packetListener);
+            }
         }
+
+        return null;
     }
 
     @SuppressWarnings("unchecked")
     private List<Object> getNetworkManagers() {
+        List<Object> cached = ChannelAccess.networkManagers;
+        if (cached != null) {
+            return cached;
+        }
+
         try {
             Object serverConnection = MinecraftReflection.getServerConnection();
             for (Field field : serverConnection.getClass().getDeclaredFields()) {
@@ -99,8 +150,8 @@ public final class ChannelAccess {
 
                 field.setAccessible(true);
 
-                List<Object> networkManagers = (List<Object>) field.get(serverConnection);
-                return Collections.synchronizedList(networkManagers);
+                // The server list is synchronized on itself, so we lock on the same list while walking it
+                return ChannelAccess.networkManagers = (List<Object>) field.get(serverConnection);
             }
 
             throw new NoSuchElementException("Did not find correct list in server connection");
@@ -108,4 +159,66 @@ public final class ChannelAccess {
             throw new RuntimeException("Cannot retrieve network managers", ex);
         }
     }
+
+    // Getter for the first field assignable to the type, null if there is none
+    private MethodHandle findGetter(Class<?> clazz, Class<?> type) {
+        try {
+            return ChannelAccess.unreflectGetter(ReflectionUtil.getFieldByType(clazz, type));
+        } catch (NoSuchFieldException ignored) {
+            return null;
+        }
+    }
+
+    private MethodHandle unreflectGetter(Field field) {
+        try {
+            return ChannelAccess.LOOKUP.unreflectGetter(field).asType(ChannelAccess.GETTER_TYPE);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException("Could not access field " + field, ex);
+        }
+    }
+
+    // Resolves the index key for a type of packet listener
+    private static final class ListenerAccess {
+        private final MethodHandle profileGetter;
+        private final MethodHandle profileIdGetter;
+        private final MethodHandle playerGetter;
+
+        private ListenerAccess(MethodHandle profileGetter, MethodHandle profileIdGetter, MethodHandle playerGetter) {
+            this.profileGetter = profileGetter;
+            this.profileIdGetter = profileIdGetter;
+            this.playerGetter = playerGetter;
+        }
+
+        private Object key(Object packetListener) throws Throwable {
+            // We can use the game profile to look up the player id in the listener
+            if (this.profileGetter != null) {
+                Object gameProfile = (Object) this.profileGetter.invokeExact(packetListener);
+                return gameProfile != null ? (Object) this.profileIdGetter.invokeExact(gameProfile) : null;
+            }
+
+            // For player connection listeners we can get the player handle
+            if (this.playerGetter != null) {
+                return (Object) this.playerGetter.invokeExact(packetListener);
+            }
+
+            return null;
+        }
+
+        private static ListenerAccess create(Class<?> type) {
+            try {
+                String name = type.getSimpleName();
+                if (name.equals("LoginListener") || name.equals("ServerLoginPacketListenerImpl")) {
+                    Field profileField = ReflectionUtil.getFieldByClassNames(type, "GameProfile");
+                    Field idField = ReflectionUtil.getFieldByType(profileField.getType(), UUID.class);
+                    return new ListenerAccess(ChannelAccess.unreflectGetter(profileField), ChannelAccess.unreflectGetter(idField), null);
+                }
+
+                Field playerField = ReflectionUtil.getFieldByClassNames(type, "ServerPlayer", "EntityPlayer");
+                return new ListenerAccess(null, null, ChannelAccess.unreflectGetter(playerField));
+            } catch (NoSuchFieldException ignored) {
+                // Might be ServerConfigurationPacketListenerImpl or something else that is unsupported
+                return new ListenerAccess(null, null, null);
+            }
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package dev.thomazz.pledge.util;
+
+import io.netty.channel.Channel;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Network managers keyed by player ID or player handle, extended with new connections when a player is not found
+public final class NetworkManagerIndex {
+    private final Accessor<Object> keyAccessor;
+    private final Accessor<Channel> channelAccessor;
+
+    private final Map<Object, Object> index = new ConcurrentHashMap<>();
+    private final Map<Object, Object> indexedManagers = new IdentityHashMap<>();
+    private final Set<Object> unkeyedManagers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int sweepThreshold = 64;
+
+    public NetworkManagerIndex(Accessor<Object> keyAccessor, Accessor<Channel> channelAccessor) {
+        this.keyAccessor = keyAccessor;
+        this.channelAccessor = channelAccessor;
+    }
+
+    public Object find(Object id, Object handle) throws Throwable {
+        Object networkManager = this.index.get(id);
+        if (networkManager == null) {
+            networkManager = this.index.get(handle);
+        }
+
+        // Connection might have been closed since it was indexed, it is evicted with the next sweep
+        if (networkManager != null && !this.channelAccessor.get(networkManager).isOpen()) {
+            return null;
+        }
+
+        return networkManager;
+    }
+
+    // New connections are added to the end of the list, so only walk back until a manager that was already seen
+    public synchronized void indexNew(List<Object> networkManagers) throws Throwable {
+        synchronized (networkManagers) {
+            ListIterator<Object> iterator = networkManagers.listIterator(networkManagers.size());
+            while (iterator.hasPrevious()) {
+                Object networkManager = iterator.previous();
+                if (this.indexedManagers.containsKey(networkManager) || this.unkeyedManagers.contains(networkManager)) {
+                    break;
+                }
+
+                if (!this.tryIndex(networkManager)) {
+                    this.unkeyedManagers.add(networkManager);
+                }
+            }
+        }
+
+        // Managers without a key yet were still handshaking when walked, so they are retried with every miss
+        Iterator<Object> unkeyed = this.unkeyedManagers.iterator();
+        while (unkeyed.hasNext()) {
+            Object networkManager = unkeyed.next();
+            if (!this.channelAccessor.get(networkManager).isOpen() || this.tryIndex(networkManager)) {
+                unkeyed.remove();
+            }
+        }
+
+        // Evict closed connections once the index doubled in size, so the cost is spread over many misses
+        if (this.indexedManagers.size() >= this.sweepThreshold) {
+            Iterator<Map.Entry<Object, Object>> entries = this.indexedManagers.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Object, Object> entry = entries.next();
+                if (!this.channelAccessor.get(entry.getKey()).isOpen()) {
+                    this.index.remove(entry.getValue(), entry.getKey());
+                    entries.remove();
+                }
+            }
+
+            this.sweepThreshold = Math.max(this.indexedManagers.size() * 2, 64);
+        }
+    }
+
+    private boolean tryIndex(Object networkManager) throws Throwable {
+        Object key = this.keyAccessor.get(networkManager);
+        if (key == null) {
+            return false;
+        }
+
+        this.indexedManagers.put(networkManager, key);
+        this.index.put(key, networkManager);
+        return true;
+    }
+
+    @FunctionalInterface
+    public interface Accessor<T> {
+        T get(Object networkManager) throws Throwable;
+    }
+}
@@ -5,9 +5,15 @@ import lombok.RequiredArgsConstructor;
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Proxy;
+import java.util.Arrays;
 import java.util.List;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
@@ -38,20 +44,7 @@ public final class TickEndTask {
 
         // Hack to add runnable to tickables
         if (!Runnable.class.isAssignableFrom(TickEndTask.RUNNABLE_CLASS)) {
-            Object handle = new Object();
-            this.registeredObject = Proxy.newProxyInstance(
-                TickEndTask.RUNNABLE_CLASS.getClassLoader(),
-                new Class[]{TickEndTask.RUNNABLE_CLASS},
-                (proxy, method, args) -> {
-                    Class<?> declaring = method.getDeclaringClass();
-                    if (declaring.equals(Object.class)) {
-                        return method.invoke(handle, args);
-                    } else {
-                        this.runnable.run();
-                        return null;
-                    }
-                }
-            );
+            this.registeredObject = TickEndTask.tickable(this.runnable);
         } else {
             this.registeredObject = this.runnable;
         }
@@ -69,6 +62,31 @@ public final class TickEndTask {
         this.registeredObject = null;
     }
 
+    // Implements the tickable interface with a generated class, so every tick is a direct call instead of a proxy dispatch
+    private static Object tickable(Runnable runnable) {
+        Method method = Arrays.stream(TickEndTask.RUNNABLE_CLASS.getMethods())
+            .filter(candidate -> Modifier.isAbstract(candidate.getModifiers()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No tick method in " + TickEndTask.RUNNABLE_CLASS));
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType tickType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                method.getName(),
+                MethodType.methodType(TickEndTask.RUNNABLE_CLASS, Runnable.class),
+                tickType,
+                lookup.findVirtual(Runnable.class, "run", MethodType.methodType(void.class)),
+                tickType
+            );
+
+            return site.getTarget().invoke(runnable);
+        } catch (Throwable ex) {
+            throw new RuntimeException("Could not create tick end runnable!", ex);
+        }
+    }
+
     public static TickEndTask create(Runnable runnable) {
         return new TickEndTask(runnable).start();
     }
@@ -0,0 +1,44 @@
+package dev.thomazz.pledge.util;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TickStartTask implements Listener {
+    // Paper calls this before anything else in the tick, scheduler tasks only run after some of the tick already passed
+    private static final String PAPER_TICK_START = "com.destroystokyo.paper.event.server.ServerTickStartEvent";
+
+    private final Runnable runnable;
+    private BukkitTask task;
+
+    private TickStartTask start(Plugin plugin, BukkitScheduler scheduler, PluginManager manager) {
+        try {
+            Class<? extends Event> eventClass = Class.forName(TickStartTask.PAPER_TICK_START).asSubclass(Event.class);
+            manager.registerEvent(eventClass, this, EventPriority.LOWEST, (listener, event) -> this.runnable.run(), plugin);
+        } catch (ClassNotFoundException ex) {
+            this.task = scheduler.runTaskTimer(plugin, this.runnable, 0L, 1L);
+        }
+
+        return this;
+    }
+
+    public void cancel() {
+        if (this.task != null) {
+            this.task.cancel();
+        } else {
+            HandlerList.unregisterAll(this);
+        }
+    }
+
+    public static TickStartTask create(Plugin plugin, BukkitScheduler scheduler, PluginManager manager, Runnable runnable) {
+        return new TickStartTask(runnable).start(plugin, scheduler, manager);
+    }
+}
@@ -1,15 +1,28 @@
 package dev.thomazz.pledge;
 
+import dev.thomazz.pledge.event.TickDriver;
+import dev.thomazz.pledge.metrics.PledgeMetrics;
+import dev.thomazz.pledge.network.FlushCoalescer;
+import dev.thomazz.pledge.network.queue.MessageQueueHandler;
+import dev.thomazz.pledge.network.queue.MessageQueuePrimer;
+import dev.thomazz.pledge.network.queue.QueueMode;
 import dev.thomazz.pledge.packet.PingPacketProvider;
 import dev.thomazz.pledge.pinger.ClientPingerImpl;
 import dev.thomazz.pledge.pinger.ClientPingerListener;
+import dev.thomazz.pledge.pinger.ListenerExecutor;
 import dev.thomazz.pledge.pinger.data.PingData;
+import dev.thomazz.pledge.pinger.data.PingOrder;
 import dev.thomazz.pledge.pinger.frame.FrameClientPingerListener;
 import dev.thomazz.pledge.pinger.frame.data.Frame;
 import dev.thomazz.pledge.pinger.frame.FrameClientPingerImpl;
+import dev.thomazz.pledge.pinger.frame.FramePolicy;
 import dev.thomazz.pledge.pinger.frame.data.FrameData;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.bukkit.entity.Player;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,17 +32,27 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,11 +66,16 @@ public class ClientPingerTests {
     @Mock private Player player;
 
     private EmbeddedChannel channel;
+    private TickDriver tickDriver;
 
     @BeforeEach
     public void setupMocks() {
+        this.tickDriver = new TickDriver(Logger.getLogger("Pledge"));
         when(this.clientPing.getPacketProvider()).thenReturn(this.provider);
         when(this.clientPing.getChannel(this.player)).thenReturn(Optional.of(this.channel = new EmbeddedChannel()));
+        lenient().when(this.clientPing.getLogger()).thenReturn(Logger.getLogger("Pledge"));
+        lenient().when(this.clientPing.getFlushCoalescer()).thenReturn(new FlushCoalescer());
+        lenient().when(this.clientPing.getTickClock()).thenReturn(this.tickDriver.getClock());
 
         when(this.provider.getUpperBound()).thenReturn(0);
         when(this.provider.getLowerBound()).thenReturn(-999);
@@ -61,6 +89,7 @@ public class ClientPingerTests {
         PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
 
         for (int i = 0; i < 200; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.tickEnd();
             this.channel.runPendingTasks();
@@ -76,6 +105,7 @@ public class ClientPingerTests {
         }
 
         for (int i = 0; i < 400; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.tickEnd();
             this.channel.runPendingTasks();
@@ -97,6 +127,7 @@ public class ClientPingerTests {
         FrameData frameData = pinger.getFrameData(this.player).orElseThrow(IllegalStateException::new);
 
         for (int i = 0; i < 200; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.getOrCreate(this.player);
             pinger.tickEnd();
@@ -127,6 +158,7 @@ public class ClientPingerTests {
         }
 
         for (int i = 0; i < 400; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.getOrCreate(this.player);
             pinger.tickEnd();
@@ -149,6 +181,7 @@ public class ClientPingerTests {
         pinger.attach(listener);
 
         for (int i = 0; i < 2; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.tickEnd();
             this.channel.runPendingTasks();
@@ -180,6 +213,7 @@ public class ClientPingerTests {
         pinger.attach(listener);
 
         for (int i = 0; i < 2; i++) {
+            this.tickDriver.start();
             pinger.tickStart();
             pinger.getOrCreate(this.player);
             pinger.tickEnd();
@@ -202,4 +236,349 @@ public class ClientPingerTests {
         verify(listener, times(2)).onFrameReceiveStart(eq(this.player), any());
         verify(listener, times(2)).onFrameReceiveEnd(eq(this.player), any());
     }
+
+    @Test
+    @Order(5)
+    public void testFramePolicy() {
+        this.channel.pipeline().addFirst("prepender", new ChannelOutboundHandlerAdapter());
+
+        FrameClientPingerImpl pinger = new FrameClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+
+        PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
+        FrameData frameData = pinger.getFrameData(this.player).orElseThrow(IllegalStateException::new);
+
+        // Budget of a single outstanding frame, refilled every 4 ticks
+        pinger.setFramePolicy(FramePolicy.budgeted(1, 4));
+        for (int i = 0; i < 12; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+            frameData.popFrame(pingData.getId() + 1);
+        }
+
+        assertEquals(-6, pingData.getId());
+        assertEquals(0, frameData.size());
+
+        // Frame every other tick
+        pinger.setFramePolicy(FramePolicy.everyTicks(2));
+        for (int i = 0; i < 10; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+        }
+
+        assertEquals(5, frameData.size());
+        assertEquals(-16, pingData.getId());
+    }
+
+    @Test
+    @Order(6)
+    public void testTimeout() {
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+        pinger.setTimeout(1L, TimeUnit.MILLISECONDS);
+
+        PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener);
+
+        this.tickDriver.start();
+
+        pinger.tickStart();
+        pinger.tickEnd();
+        this.channel.runPendingTasks();
+        pingData.confirm(0).orElseThrow(IllegalStateException::new);
+
+        // Wheel only passes the deadline after at least one full bucket
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1L);
+        pinger.expireTimeouts(now);
+        pinger.tickEnd();
+        this.channel.runPendingTasks();
+
+        verify(listener, times(1)).onPingTimeout(eq(this.player), eq(-1));
+        assertEquals(1, pingData.size());
+        assertEquals(-2, pingData.getOldestId());
+        assertFalse(pingData.confirm(-1).isPresent());
+
+        // Disabled timeouts keep pings outstanding
+        pinger.setTimeout(0L, TimeUnit.MILLISECONDS);
+        pinger.expireTimeouts(now + TimeUnit.SECONDS.toNanos(1L));
+        pinger.tickEnd();
+        this.channel.runPendingTasks();
+
+        verify(listener, times(1)).onPingTimeout(eq(this.player), anyInt());
+        assertEquals(2, pingData.size());
+    }
+
+    @Test
+    @Order(7)
+    public void testResync() {
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+
+        PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
+        PlayerSession session = PlayerSession.get(this.channel);
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener);
+
+        for (int i = 0; i < 3; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+        }
+
+        // Pongs for 0 and -1 got lost, the pong for -2 confirms everything before it
+        assertTrue(pinger.receivePong(session, -2));
+        verify(listener, times(1)).onPingsSkipped(this.player, 0, -1, 2);
+        verify(listener, times(1)).onPongReceiveStart(this.player, -2);
+        assertEquals(1L, pingData.getResyncs());
+        assertEquals(3, pingData.size());
+
+        // Already confirmed, nothing to match anymore
+        assertFalse(pinger.receivePong(session, -1));
+
+        assertTrue(pinger.receivePong(session, -5));
+        verify(listener, times(1)).onPingsSkipped(this.player, -3, -4, 2);
+        assertEquals(0, pingData.size());
+    }
+
+    @Test
+    @Order(8)
+    public void testListenerExecutor() {
+        List<Runnable> tasks = new ArrayList<>();
+        ListenerExecutor executor = ListenerExecutor.of(tasks::add, 1, 2);
+
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener, executor);
+
+        long overflows = PledgeMetrics.LISTENER_OVERFLOWS.get();
+        this.tickDriver.start();
+        pinger.tickStart();
+        pinger.tickEnd();
+        this.tickDriver.start();
+        pinger.tickStart();
+        this.channel.runPendingTasks();
+
+        // Nothing runs on the event loop, the last callback does not fit in the queue
+        verify(listener, never()).onPingSendStart(any(), anyInt());
+        assertEquals(overflows + 1, PledgeMetrics.LISTENER_OVERFLOWS.get());
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+
+        InOrder order = inOrder(listener);
+        order.verify(listener).onPingSendStart(this.player, 0);
+        order.verify(listener).onPingSendEnd(this.player, -1);
+        order.verifyNoMoreInteractions();
+    }
+
+    @Test
+    @Order(9)
+    public void testTickExecutor() {
+        ListenerExecutor executor = ListenerExecutor.tickSynchronized(16);
+
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener, executor);
+
+        for (int i = 0; i < 2; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+        }
+
+        verify(listener, never()).onPingSendStart(any(), anyInt());
+
+        // Everything since the last drain runs at once on the draining thread
+        executor.drain();
+        executor.drain();
+
+        InOrder order = inOrder(listener);
+        order.verify(listener).onPingSendStart(this.player, 0);
+        order.verify(listener).onPingSendEnd(this.player, -1);
+        order.verify(listener).onPingSendStart(this.player, -2);
+        order.verify(listener).onPingSendEnd(this.player, -3);
+        order.verifyNoMoreInteractions();
+    }
+
+    @Test
+    @Order(10)
+    public void testUnwritableMerging() {
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+        this.channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 8));
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener);
+
+        this.tickDriver.start();
+
+        pinger.tickStart();
+        this.channel.runPendingTasks();
+        this.fillOutboundBuffer();
+
+        // Ticks ending while the client is not reading stay in the bracket of the first tick
+        pinger.tickEnd();
+        for (int i = 0; i < 3; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+        }
+
+        verify(listener, times(1)).onPingSendStart(eq(this.player), anyInt());
+        verify(listener, never()).onPingSendEnd(any(), anyInt());
+
+        // Exactly one bracket is closed once writable again, the next tick starts a new one
+        this.channel.pipeline().firstContext().flush();
+        assertTrue(this.channel.isWritable());
+        this.tickDriver.start();
+        pinger.tickStart();
+        pinger.tickEnd();
+        this.tickDriver.start();
+        pinger.tickStart();
+        this.channel.runPendingTasks();
+
+        InOrder order = inOrder(listener);
+        order.verify(listener).onPingSendStart(this.player, 0);
+        order.verify(listener).onPingSendEnd(this.player, -1);
+        order.verify(listener).onPingSendStart(this.player, -2);
+        order.verifyNoMoreInteractions();
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @Order(11)
+    public void testUnwritableFrameClientPinger() {
+        this.channel.pipeline().addFirst("prepender", new ChannelOutboundHandlerAdapter());
+
+        FrameClientPingerImpl pinger = new FrameClientPingerImpl(this.clientPing, 0, -999);
+        pinger.registerPlayer(this.player);
+        this.channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 8));
+        this.channel.runPendingTasks();
+
+        FrameClientPingerListener listener = mock(FrameClientPingerListener.class);
+        pinger.attach(listener);
+
+        MessageQueueHandler handler = this.channel.pipeline().get(MessageQueueHandler.class);
+        handler.setMode(QueueMode.ADD_LAST);
+        this.fillOutboundBuffer();
+        // Straight into the queue handler, classifying packets needs a server
+        this.channel.pipeline().context(MessageQueuePrimer.class).write("test");
+
+        // Ticks without a frame keep queueing while the client is not reading
+        for (int i = 0; i < 3; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+            this.channel.runPendingTasks();
+        }
+
+        assertEquals(1, handler.getMessageQueue().size());
+
+        this.channel.pipeline().firstContext().flush();
+        this.tickDriver.start();
+        pinger.tickStart();
+        pinger.tickEnd();
+        this.channel.runPendingTasks();
+
+        assertEquals(0, handler.getMessageQueue().size());
+        verify(listener, never()).onFrameSend(any(), any());
+        ((ByteBuf) this.channel.readOutbound()).release();
+        assertEquals("test", this.channel.readOutbound());
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @Order(12)
+    public void testDroppedIds() {
+        when(this.provider.getLowerBound()).thenReturn(-1999);
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -1999);
+        pinger.registerPlayer(this.player);
+        PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
+
+        for (int i = 0; i < 1024; i++) {
+            assertTrue(pingData.offer(PingOrder.TICK_START, pingData.pullId()));
+        }
+
+        // Not tracked, but the pong can still arrive until a ping sent after it is confirmed
+        int dropped = pingData.pullId();
+        assertFalse(pingData.offer(PingOrder.TICK_END, dropped));
+        assertEquals(1, pingData.getHeld());
+
+        assertTrue(pingData.confirm(-1023).isPresent());
+        assertEquals(1, pingData.getHeld());
+
+        int next = pingData.pullId();
+        assertEquals(dropped - 1, next);
+        assertTrue(pingData.offer(PingOrder.TICK_START, next));
+        assertTrue(pingData.confirm(next).isPresent());
+        assertEquals(0, pingData.getHeld());
+    }
+
+    @Test
+    @Order(13)
+    public void testLatePong() {
+        ClientPingerImpl pinger = new ClientPingerImpl(this.clientPing, 0, -3);
+        pinger.registerPlayer(this.player);
+        pinger.setTimeout(1L, TimeUnit.MILLISECONDS);
+
+        PingData pingData = pinger.getPingData(this.player).orElseThrow(IllegalStateException::new);
+        PlayerSession session = PlayerSession.get(this.channel);
+
+        ClientPingerListener listener = mock(ClientPingerListener.class);
+        pinger.attach(listener);
+
+        this.tickDriver.start();
+
+        pinger.tickStart();
+        pinger.tickEnd();
+        this.channel.runPendingTasks();
+        assertTrue(pinger.receivePong(session, 0));
+
+        pinger.expireTimeouts(System.nanoTime() + TimeUnit.SECONDS.toNanos(1L));
+        this.channel.runPendingTasks();
+        verify(listener, times(1)).onPingTimeout(this.player, -1);
+        assertEquals(1, pingData.getHeld());
+
+        // Wrapping around hands out the confirmed ID again, then an outstanding one instead of the one that timed out
+        for (int i = 0; i < 2; i++) {
+            this.tickDriver.start();
+            pinger.tickStart();
+            pinger.tickEnd();
+        }
+
+        this.channel.runPendingTasks();
+        verify(listener, times(2)).onPingSendStart(this.player, 0);
+        verify(listener, times(1)).onPingSendEnd(this.player, -1);
+        verify(listener, times(1)).onPingSendEnd(this.player, -2);
+
+        // The late pong does not match the newer pings
+        assertFalse(pinger.receivePong(session, -1));
+        verify(listener, never()).onPongReceiveEnd(this.player, -1);
+        assertEquals(4, pingData.size());
+        assertEquals(0L, pingData.getResyncs());
+
+        // Pongs after it can not be late anymore
+        assertTrue(pinger.receivePong(session, -2));
+        assertEquals(0, pingData.getHeld());
+    }
+
+    // Pending bytes above the high water mark without flushing, skipping all handlers
+    private void fillOutboundBuffer() {
+        this.channel.pipeline().firstContext().write(Unpooled.wrappedBuffer(new byte[16]));
+        assertFalse(this.channel.isWritable());
+    }
 }
@@ -0,0 +1,57 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.network.FlushCoalescer;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Flush Coalescer Tests")
+public class FlushCoalescerTests {
+    @Test
+    public void testCoalesceFlushes() {
+        FlushCounter counter = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(counter);
+        PlayerSession session = PlayerSession.attach(channel, mock(Player.class));
+
+        FlushCoalescer coalescer = new FlushCoalescer();
+        for (int i = 0; i < 3; i++) {
+            coalescer.flush(session, channel);
+        }
+
+        assertEquals(3, counter.flushes);
+        assertEquals(3, coalescer.getFlushes());
+
+        // Only a single flush at the tick boundary
+        coalescer.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            coalescer.flush(session, channel);
+        }
+
+        assertEquals(3, counter.flushes);
+        coalescer.flushPending(session);
+        coalescer.flushPending(session);
+
+        assertEquals(4, counter.flushes);
+        assertEquals(4, coalescer.getFlushes());
+        assertEquals(3, coalescer.getCoalescedFlushes());
+
+        channel.finishAndReleaseAll();
+    }
+
+    private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+        private int flushes;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            this.flushes++;
+            super.flush(ctx);
+        }
+    }
+}
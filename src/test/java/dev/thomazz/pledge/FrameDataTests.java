@@ -0,0 +1,61 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.pinger.frame.data.Frame;
+import dev.thomazz.pledge.pinger.frame.data.FrameData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("Frame Data Tests")
+public class FrameDataTests {
+    @Test
+    public void testSkippedFrames() {
+        FrameData data = new FrameData();
+        for (int i = 0; i < 1000; i++) {
+            FrameDataTests.send(data, new Frame(-i * 2, -i * 2 - 1));
+        }
+
+        // Frames before the matched frame are passed to the handler as well
+        List<Frame> visited = new ArrayList<>();
+        Frame frame = data.findEnd(-21, visited::add);
+        assertEquals(new Frame(-20, -21), frame);
+        assertEquals(11, visited.size());
+
+        data.popFrame(-21);
+        assertEquals(989, data.size());
+        assertNull(data.findStart(-20, f -> {}));
+        assertFalse(data.matchEnd(-1, f -> {}).isPresent());
+        assertEquals(new Frame(-22, -23), data.findStart(-22, f -> {}));
+    }
+
+    @Test
+    public void testDuplicateIds() {
+        FrameData data = new FrameData();
+        Frame first = new Frame(-1, -2);
+        Frame second = new Frame(-3, -4);
+        Frame third = new Frame(-1, -2);
+
+        FrameDataTests.send(data, first);
+        FrameDataTests.send(data, second);
+        FrameDataTests.send(data, third);
+
+        // Oldest frame is matched first, after that the newer frame with the same IDs
+        assertSame(first, data.findEnd(-2, f -> {}));
+        data.popFrame(-2);
+        assertSame(third, data.findEnd(-2, f -> {}));
+        data.popFrame(-2);
+        assertEquals(0, data.size());
+    }
+
+    private static void send(FrameData data, Frame frame) {
+        data.setFrame(frame);
+        data.continueFrame();
+    }
+}
@@ -0,0 +1,45 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.pinger.IdSpace;
+import dev.thomazz.pledge.pinger.data.IdAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ID Allocation Tests")
+public class IdAllocationTests {
+    @Test
+    public void testSkipInFlight() {
+        IdAllocator allocator = new IdAllocator(100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, allocator.next());
+        }
+
+        // Only a few pongs came back, wrapping around skips the rest
+        allocator.release(3);
+        allocator.release(70);
+        assertEquals(3, allocator.next());
+        assertEquals(70, allocator.next());
+        assertTrue(allocator.isInFlight(0));
+
+        // Nothing free, continues in order
+        assertEquals(71, allocator.next());
+        assertEquals(72, allocator.next());
+    }
+
+    @Test
+    public void testLease() {
+        IdSpace space = new IdSpace(Short.MIN_VALUE, -1);
+        space.reserve(-1, -200);
+        space.reserve(-300, -250);
+
+        assertArrayEquals(new int[] {-201, -249}, space.lease(49));
+        assertArrayEquals(new int[] {-301, -400}, space.lease(100));
+        assertArrayEquals(new int[] {-401, -401}, space.lease(1));
+        assertThrows(IllegalStateException.class, () -> space.lease(Short.MAX_VALUE));
+    }
+}
@@ -0,0 +1,39 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.metrics.HistogramSnapshot;
+import dev.thomazz.pledge.metrics.LatencyHistogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Latency Histogram Tests")
+public class LatencyHistogramTests {
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(1000, snapshot.getCount());
+        this.assertClose(TimeUnit.MICROSECONDS.toNanos(500), snapshot.getPercentile(50));
+        this.assertClose(TimeUnit.MICROSECONDS.toNanos(990), snapshot.getPercentile(99));
+        this.assertClose(TimeUnit.MICROSECONDS.toNanos(1000), snapshot.getMax());
+
+        // Everything was moved into the snapshot
+        assertEquals(0, histogram.snapshot().getCount());
+
+        histogram.record(0L);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.snapshot().getCount());
+    }
+
+    private void assertClose(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected * 0.07D, "Expected " + expected + " but was " + actual);
+    }
+}
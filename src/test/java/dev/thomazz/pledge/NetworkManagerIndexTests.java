@@ -0,0 +1,57 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.util.NetworkManagerIndex;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("Network Manager Index Tests")
+public class NetworkManagerIndexTests {
+    @Test
+    public void testUnkeyedManager() throws Throwable {
+        NetworkManagerIndex index = new NetworkManagerIndex(
+            networkManager -> ((NetworkManager) networkManager).key,
+            networkManager -> ((NetworkManager) networkManager).channel
+        );
+
+        List<Object> networkManagers = new ArrayList<>();
+        NetworkManager handshaking = new NetworkManager(null);
+        NetworkManager keyed = new NetworkManager(UUID.randomUUID());
+        networkManagers.add(handshaking);
+        networkManagers.add(keyed);
+
+        index.indexNew(networkManagers);
+        assertSame(keyed, index.find(keyed.key, this));
+
+        // The newer manager is indexed already, the walk stops there but the handshaking one is still retried
+        handshaking.key = UUID.randomUUID();
+        assertNull(index.find(handshaking.key, this));
+        index.indexNew(networkManagers);
+        assertSame(handshaking, index.find(handshaking.key, this));
+
+        // Closed before getting a key, so it is not retried anymore
+        NetworkManager closed = new NetworkManager(null);
+        networkManagers.add(closed);
+        index.indexNew(networkManagers);
+        closed.channel.close();
+        closed.key = UUID.randomUUID();
+        index.indexNew(networkManagers);
+        assertNull(index.find(closed.key, this));
+    }
+
+    private static final class NetworkManager {
+        private final EmbeddedChannel channel = new EmbeddedChannel();
+        private Object key;
+
+        private NetworkManager(Object key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.network.NetworkPongListener;
+import dev.thomazz.pledge.network.NetworkPongSniffer;
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Network Pong Sniffer Tests")
+@ExtendWith(MockitoExtension.class)
+public class NetworkPongSnifferTests {
+    private static final int PONG_PACKET_ID = 0x24;
+    private static final int OTHER_PACKET_ID = 0x14;
+
+    @Mock private PledgeImpl clientPing;
+    @Mock private Player player;
+
+    private EmbeddedChannel channel;
+    private NetworkPongSniffer sniffer;
+    private PlayerSession session;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        PingPacketProvider provider = new PingPongPacketProvider(AccessorBackend.COMPILED, PingPacket.class, PongPacket.class);
+        when(this.clientPing.getPacketProvider()).thenReturn(provider);
+
+        this.sniffer = new NetworkPongSniffer(this.clientPing, this.player);
+        NetworkPongListener listener = new NetworkPongListener(this.clientPing, this.player, true);
+        listener.setSniffer(this.sniffer);
+
+        this.channel = new EmbeddedChannel();
+        this.session = PlayerSession.attach(this.channel, this.player);
+        this.channel.pipeline()
+            .addLast("pledge_pong_sniffer", this.sniffer)
+            .addLast("decoder", new TestDecoder())
+            .addLast("pledge_packet_listener", listener);
+    }
+
+    @Test
+    public void testSniffPongs() {
+        this.channel.writeInbound(NetworkPongSnifferTests.frame(NetworkPongSnifferTests.OTHER_PACKET_ID, 5));
+        assertFalse(this.sniffer.isLearned());
+
+        // First pong is picked up after decoding
+        this.channel.writeInbound(NetworkPongSnifferTests.frame(NetworkPongSnifferTests.PONG_PACKET_ID, -1));
+        assertTrue(this.sniffer.isLearned());
+        verify(this.clientPing, times(1)).receivePong(this.player, this.session, -1);
+
+        // After that only from raw frames
+        this.channel.writeInbound(NetworkPongSnifferTests.frame(NetworkPongSnifferTests.OTHER_PACKET_ID, -2));
+        this.channel.writeInbound(NetworkPongSnifferTests.frame(NetworkPongSnifferTests.PONG_PACKET_ID, -3));
+        this.channel.writeInbound(NetworkPongSnifferTests.frame(NetworkPongSnifferTests.PONG_PACKET_ID, -4));
+
+        verify(this.clientPing, times(1)).receivePong(this.player, this.session, -3);
+        verify(this.clientPing, times(1)).receivePong(this.player, this.session, -4);
+        verify(this.clientPing, times(3)).receivePong(eq(this.player), eq(this.session), anyInt());
+
+        this.channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf frame(int packetId, int id) {
+        return Unpooled.buffer().writeByte(packetId).writeInt(id);
+    }
+
+    public static class PingPacket {
+        private final int id;
+
+        public PingPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class PongPacket {
+        private final int id;
+
+        public PongPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class TestDecoder extends ByteToMessageDecoder {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            int packetId = in.readByte();
+            int value = in.readInt();
+            out.add(packetId == NetworkPongSnifferTests.PONG_PACKET_ID ? new PongPacket(value) : value);
+        }
+    }
+}
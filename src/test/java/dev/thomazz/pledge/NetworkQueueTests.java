@@ -1,11 +1,17 @@
 package dev.thomazz.pledge;
 
+import dev.thomazz.pledge.metrics.PledgeMetrics;
 import dev.thomazz.pledge.network.queue.MessageQueueHandler;
+import dev.thomazz.pledge.network.queue.QueueLimits;
 import dev.thomazz.pledge.network.queue.QueueMode;
+import dev.thomazz.pledge.network.queue.QueueOverflowAction;
+import dev.thomazz.pledge.session.PlayerSession;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.bukkit.entity.Player;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.MethodOrderer;
@@ -17,6 +23,8 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
 
 @DisplayName("Network Queue Tests")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -75,6 +83,84 @@ public class NetworkQueueTests {
         }
     }
 
+    @Test
+    @Order(3)
+    public void testGrow() {
+        this.channel = new EmbeddedChannel(this.testHandler, this.queueHandler);
+
+        // Wraps around the start of the ring before it has to grow
+        this.queueHandler.setMode(QueueMode.ADD_LAST);
+        for (int i = 11; i <= 50; i++) {
+            this.channel.writeAndFlush("test" + i);
+        }
+
+        this.queueHandler.setMode(QueueMode.ADD_FIRST);
+        for (int i = 10; i >= 1; i--) {
+            this.channel.writeAndFlush("test" + i);
+        }
+
+        assertEquals(50, this.queueHandler.getMessageQueue().size());
+        this.queueHandler.drain(this.channel.pipeline().lastContext());
+
+        int i = 1;
+        for (Object message : this.testHandler.messages) {
+            assertEquals("test" + i++, message);
+        }
+
+        assertEquals(51, i);
+        assertEquals(0, this.queueHandler.getMessageQueue().size());
+    }
+
+    @Test
+    @Order(4)
+    public void testLimits() {
+        this.channel = new EmbeddedChannel(this.testHandler, this.queueHandler);
+        PlayerSession.attach(this.channel, mock(Player.class));
+
+        QueueLimits limits = new QueueLimits(session -> {});
+        limits.setMaxMessages(3);
+        this.queueHandler.setLimits(limits);
+
+        // Spills all queued messages when exceeding the limit
+        this.queueHandler.setMode(QueueMode.ADD_LAST);
+        for (int i = 1; i <= 4; i++) {
+            this.channel.writeAndFlush("test" + i);
+        }
+
+        assertEquals(4, this.testHandler.messages.size());
+        assertEquals(0, this.queueHandler.getMessageQueue().size());
+
+        // Closes the channel without sending queued messages
+        limits.setPolicy((player, messages, bytes) -> QueueOverflowAction.KICK);
+        for (int i = 5; i <= 8; i++) {
+            this.channel.writeAndFlush("test" + i);
+        }
+
+        assertEquals(4, this.testHandler.messages.size());
+        assertFalse(this.channel.isOpen());
+    }
+
+    @Test
+    @Order(5)
+    public void testRemove() {
+        this.channel = new EmbeddedChannel(this.testHandler, this.queueHandler);
+        long queued = PledgeMetrics.QUEUED_MESSAGES.get();
+
+        this.queueHandler.setMode(QueueMode.ADD_LAST);
+        ChannelFuture first = this.channel.writeAndFlush("test1");
+        ChannelFuture second = this.channel.writeAndFlush("test2");
+        assertEquals(queued + 2, PledgeMetrics.QUEUED_MESSAGES.get());
+
+        // Queued messages are failed instead of staying around after removing the handler
+        this.channel.pipeline().remove(this.queueHandler);
+        assertEquals(0, this.queueHandler.getMessageQueue().size());
+        assertEquals(0L, this.queueHandler.getQueuedBytes());
+        assertEquals(queued, PledgeMetrics.QUEUED_MESSAGES.get());
+        assertFalse(first.isSuccess());
+        assertFalse(second.isSuccess());
+        assertEquals(0, this.testHandler.messages.size());
+    }
+
     private static class TestChannelOutboundHandler extends ChannelOutboundHandlerAdapter {
         private final Queue<Object> messages = new ConcurrentLinkedQueue<>();
 
@@ -0,0 +1,88 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import dev.thomazz.pledge.packet.providers.TransactionPacketProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Packet Accessor Tests")
+public class PacketAccessorTests {
+    @Test
+    public void testPingPongProvider() throws Exception {
+        for (AccessorBackend backend : AccessorBackend.values()) {
+            this.testPingPongProvider(new PingPongPacketProvider(backend, PingPacket.class, PongPacket.class));
+        }
+    }
+
+    @Test
+    public void testTransactionProvider() throws Exception {
+        for (AccessorBackend backend : AccessorBackend.values()) {
+            this.testTransactionProvider(new TransactionPacketProvider(backend, OutTransactionPacket.class, InTransactionPacket.class));
+        }
+    }
+
+    private void testPingPongProvider(PingPacketProvider provider) throws Exception {
+        Object packet = provider.buildPacket(-1234);
+        assertInstanceOf(PingPacket.class, packet);
+        assertEquals(-1234, ((PingPacket) packet).id);
+
+        assertTrue(provider.isPong(new PongPacket(-5678)));
+        assertFalse(provider.isPong(packet));
+        assertEquals(-5678, provider.idFromPong(new PongPacket(-5678)));
+    }
+
+    private void testTransactionProvider(PingPacketProvider provider) throws Exception {
+        Object packet = provider.buildPacket(-300);
+        assertInstanceOf(OutTransactionPacket.class, packet);
+        assertEquals(0, ((OutTransactionPacket) packet).window);
+        assertEquals(-300, ((OutTransactionPacket) packet).action);
+        assertFalse(((OutTransactionPacket) packet).accepted);
+
+        assertTrue(provider.isPong(new InTransactionPacket((short) -300)));
+        assertFalse(provider.isPong(new InTransactionPacket((short) 12)));
+        assertEquals(-300, provider.idFromPong(new InTransactionPacket((short) -300)));
+    }
+
+    public static class PingPacket {
+        private final int id;
+
+        public PingPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class PongPacket {
+        private final int id;
+
+        public PongPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class OutTransactionPacket {
+        private final int window;
+        private final short action;
+        private final boolean accepted;
+
+        public OutTransactionPacket(int window, short action, boolean accepted) {
+            this.window = window;
+            this.action = action;
+            this.accepted = accepted;
+        }
+    }
+
+    public static class InTransactionPacket {
+        private final short action;
+
+        public InTransactionPacket(short action) {
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.event.PingEventBus;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Ping Event Bus Tests")
+public class PingEventBusTests {
+    @Test
+    public void testFailingHandler() {
+        PingEventBus eventBus = new PingEventBus(Logger.getLogger("Pledge"));
+        Player player = mock(Player.class);
+        List<Integer> calls = new ArrayList<>();
+
+        eventBus.onPingSend((target, id) -> {
+            throw new IllegalStateException("Failing handler");
+        });
+        eventBus.onPingSend((target, id) -> calls.add(id));
+        eventBus.onPongReceive((target, id) -> {
+            throw new IllegalStateException("Failing handler");
+        });
+        eventBus.onPongReceive((target, id) -> calls.add(-id));
+
+        // Later handlers still run, and the caller sending or tracking the ping is not interrupted
+        eventBus.postPingSend(player, 5);
+        eventBus.postPongReceive(player, 5);
+        assertEquals(Arrays.asList(5, -5), calls);
+    }
+}
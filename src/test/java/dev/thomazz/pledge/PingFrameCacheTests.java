@@ -0,0 +1,111 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.network.encode.PingFrameCache;
+import dev.thomazz.pledge.packet.PingPacketProvider;
+import dev.thomazz.pledge.packet.accessor.AccessorBackend;
+import dev.thomazz.pledge.packet.providers.PingPongPacketProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToByteEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Ping Frame Cache Tests")
+public class PingFrameCacheTests {
+    private EmbeddedChannel channel;
+    private PingPacketProvider provider;
+    private PingFrameCache cache;
+    private HoldingHandler queue;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        this.channel = new EmbeddedChannel();
+        this.channel.pipeline().addLast("encoder", new PingEncoder());
+        this.channel.pipeline().addLast("queue", this.queue = new HoldingHandler());
+        this.provider = new PingPongPacketProvider(AccessorBackend.COMPILED, PingPacket.class, PongPacket.class);
+        this.cache = new PingFrameCache(this.provider);
+    }
+
+    @AfterEach
+    public void teardown() {
+        this.cache.release();
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testLearnAndEncode() throws Exception {
+        this.cache.addRange(-1, -10);
+        assertNull(this.cache.frame(this.channel.alloc(), -1));
+
+        ChannelHandlerContext encoder = this.channel.pipeline().context("encoder");
+        assertTrue(this.cache.learn(encoder, this.provider.buildPacket(-1), -1));
+        assertTrue(this.cache.isLearned());
+        assertFalse(this.channel.pipeline().names().contains("pledge_ping_capture"));
+        assertFalse(this.channel.pipeline().names().contains("pledge_ping_writer"));
+
+        // Learning ping is still sent, without passing handlers above the encoder or flushing
+        assertEquals(0, this.queue.held);
+        assertNull(this.channel.readOutbound());
+        this.channel.flush();
+        this.assertFrame(this.channel.readOutbound(), -1);
+
+        // Pre-encoded range and patched template
+        this.assertFrame(this.cache.frame(this.channel.alloc(), -5), -5);
+        this.assertFrame(this.cache.frame(this.channel.alloc(), -10), -10);
+        this.assertFrame(this.cache.frame(this.channel.alloc(), 1000), 1000);
+    }
+
+    private void assertFrame(ByteBuf frame, int id) {
+        try {
+            assertEquals(5, frame.readableBytes());
+            assertEquals(0x21, frame.readByte());
+            assertEquals(id, frame.readInt());
+        } finally {
+            frame.release();
+        }
+    }
+
+    public static class PingPacket {
+        private final int id;
+
+        public PingPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class PongPacket {
+        private final int id;
+
+        public PongPacket(int id) {
+            this.id = id;
+        }
+    }
+
+    // Stands in for the queue handlers above the encoder, which would hold back the learning ping
+    private static class HoldingHandler extends ChannelOutboundHandlerAdapter {
+        private int held;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            this.held++;
+        }
+    }
+
+    private static class PingEncoder extends MessageToByteEncoder<PingPacket> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, PingPacket msg, ByteBuf out) {
+            out.writeByte(0x21);
+            out.writeInt(msg.id);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.pinger.ClientPingerImpl;
+import dev.thomazz.pledge.pinger.PongDispatchIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Pong Dispatch Index Tests")
+public class PongDispatchIndexTests {
+    @Test
+    public void testDirectLookup() {
+        ClientPingerImpl first = PongDispatchIndexTests.pinger(-1, -200);
+        ClientPingerImpl second = PongDispatchIndexTests.pinger(-150, -400);
+        ClientPingerImpl third = PongDispatchIndexTests.pinger(-1000, -2000);
+        PongDispatchIndex index = PongDispatchIndex.of(Arrays.asList(first, second, third));
+
+        this.assertLookup(index, first, second, third);
+    }
+
+    @Test
+    public void testSearchLookup() {
+        ClientPingerImpl first = PongDispatchIndexTests.pinger(-1, -200);
+        ClientPingerImpl second = PongDispatchIndexTests.pinger(-150, -400);
+        ClientPingerImpl third = PongDispatchIndexTests.pinger(-1000, Integer.MIN_VALUE);
+        PongDispatchIndex index = PongDispatchIndex.of(Arrays.asList(first, second, third));
+
+        this.assertLookup(index, first, second, third);
+        assertArrayEquals(new ClientPingerImpl[] {third}, index.lookup(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertNull(PongDispatchIndex.EMPTY.lookup(0));
+        assertNull(PongDispatchIndex.EMPTY.lookup(Integer.MIN_VALUE));
+    }
+
+    private void assertLookup(PongDispatchIndex index, ClientPingerImpl first, ClientPingerImpl second, ClientPingerImpl third) {
+        assertNull(index.lookup(0));
+        assertNull(index.lookup(Integer.MAX_VALUE));
+        assertNull(index.lookup(-401));
+        assertNull(index.lookup(-999));
+
+        assertArrayEquals(new ClientPingerImpl[] {first}, index.lookup(-1));
+        assertArrayEquals(new ClientPingerImpl[] {first}, index.lookup(-149));
+        assertArrayEquals(new ClientPingerImpl[] {first, second}, index.lookup(-150));
+        assertArrayEquals(new ClientPingerImpl[] {first, second}, index.lookup(-200));
+        assertArrayEquals(new ClientPingerImpl[] {second}, index.lookup(-201));
+        assertArrayEquals(new ClientPingerImpl[] {second}, index.lookup(-400));
+        assertArrayEquals(new ClientPingerImpl[] {third}, index.lookup(-1000));
+        assertArrayEquals(new ClientPingerImpl[] {third}, index.lookup(-2000));
+    }
+
+    private static ClientPingerImpl pinger(int startId, int endId) {
+        ClientPingerImpl pinger = mock(ClientPingerImpl.class);
+        when(pinger.startId()).thenReturn(startId);
+        when(pinger.endId()).thenReturn(endId);
+        return pinger;
+    }
+}
@@ -0,0 +1,68 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.event.TickClock;
+import dev.thomazz.pledge.event.TickDriver;
+import dev.thomazz.pledge.event.TickListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Tick Clock Tests")
+public class TickClockTests {
+    @Test
+    public void testTicks() {
+        TickDriver driver = new TickDriver(Logger.getLogger("Pledge"));
+        TickClock clock = driver.getClock();
+        List<String> calls = new ArrayList<>();
+
+        TickListener start = (tick, time) -> calls.add("start " + tick);
+        clock.onTickStart(start);
+        clock.onTickEnd((tick, time) -> {
+            assertEquals(clock.getTickEnd(), time);
+            calls.add("end " + tick);
+        });
+
+        assertEquals(-1L, clock.getTick());
+
+        for (int i = 0; i < 2; i++) {
+            driver.start();
+            driver.end();
+        }
+
+        assertEquals(1L, clock.getTick());
+        assertTrue(clock.getTickEnd() >= clock.getTickStart());
+
+        // Unregistered listeners are not called anymore, tick numbers keep counting
+        clock.unregister(start);
+        driver.start();
+
+        assertEquals(2L, clock.getTick());
+        assertEquals(4, calls.size());
+        assertEquals("start 0", calls.get(0));
+        assertEquals("end 1", calls.get(3));
+    }
+
+    @Test
+    public void testFailingListener() {
+        TickDriver driver = new TickDriver(Logger.getLogger("Pledge"));
+        TickClock clock = driver.getClock();
+        List<Long> calls = new ArrayList<>();
+
+        clock.onTickStart((tick, time) -> {
+            throw new IllegalStateException("Failing listener");
+        });
+        clock.onTickStart((tick, time) -> calls.add(tick));
+
+        // Later listeners still run, and the caller driving the tick is not interrupted
+        driver.start();
+        driver.start();
+        assertEquals(Arrays.asList(0L, 1L), calls);
+    }
+}
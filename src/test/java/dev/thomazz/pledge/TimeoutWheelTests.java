@@ -0,0 +1,81 @@
+package dev.thomazz.pledge;
+
+import dev.thomazz.pledge.pinger.TimeoutWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Timeout Wheel Tests")
+public class TimeoutWheelTests {
+    @Test
+    public void testAdvance() {
+        // A full turn of 8 buckets of 10 takes 80
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(8, 10L, 0L);
+        List<String> expired = new ArrayList<>();
+
+        TimeoutWheel.Timeout<String> first = new TimeoutWheel.Timeout<>("first");
+        TimeoutWheel.Timeout<String> second = new TimeoutWheel.Timeout<>("second");
+        TimeoutWheel.Timeout<String> third = new TimeoutWheel.Timeout<>("third");
+
+        wheel.schedule(first, 25L);
+        wheel.schedule(second, 55L);
+        wheel.schedule(third, 200L);
+        assertEquals(3, wheel.size());
+
+        // Only buckets that are fully passed are visited
+        wheel.advance(29L, expired::add);
+        assertEquals(Collections.emptyList(), expired);
+
+        wheel.advance(35L, expired::add);
+        assertEquals(Collections.singletonList("first"), expired);
+        assertFalse(first.isScheduled());
+
+        wheel.cancel(second);
+        assertFalse(second.isScheduled());
+        wheel.advance(70L, expired::add);
+        assertEquals(1, expired.size());
+
+        // Shares a bucket with the earlier ticks, but stays until its own turn comes
+        wheel.advance(150L, expired::add);
+        assertEquals(1, expired.size());
+        assertTrue(third.isScheduled());
+
+        wheel.advance(215L, expired::add);
+        assertEquals("third", expired.get(1));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(8, 10L, 0L);
+        List<String> expired = new ArrayList<>();
+
+        TimeoutWheel.Timeout<String> timeout = new TimeoutWheel.Timeout<>("timeout");
+        wheel.schedule(timeout, 30L);
+        wheel.schedule(timeout, 120L);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(100L, expired::add);
+        assertEquals(Collections.emptyList(), expired);
+
+        // Jumping ahead more than a full turn still visits every bucket once
+        wheel.advance(1000L, expired::add);
+        assertEquals(Collections.singletonList("timeout"), expired);
+
+        // A deadline already passed goes into the next bucket to visit
+        wheel.schedule(timeout, 500L);
+        wheel.advance(1005L, expired::add);
+        assertEquals(1, expired.size());
+
+        wheel.advance(1015L, expired::add);
+        assertEquals(2, expired.size());
+        assertEquals(0, wheel.size());
+    }
+}